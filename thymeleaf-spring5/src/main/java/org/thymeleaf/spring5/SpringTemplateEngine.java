@@ -19,16 +19,41 @@
  */
 package org.thymeleaf.spring5;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
 import org.springframework.context.MessageSourceAware;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StreamUtils;
+import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.dialect.IDialect;
+import org.thymeleaf.exceptions.TemplateProcessingException;
 import org.thymeleaf.messageresolver.IMessageResolver;
 import org.thymeleaf.messageresolver.StandardMessageResolver;
 import org.thymeleaf.spring5.dialect.SpringStandardDialect;
+import org.thymeleaf.spring5.expression.SPELExpressionCache;
+import org.thymeleaf.spring5.expression.SPELExpressionExtractor;
+import org.thymeleaf.spring5.expression.SPELVariableExpressionEvaluator;
+import org.thymeleaf.spring5.expression.SpringStandardExpressions;
 import org.thymeleaf.spring5.messageresolver.SpringMessageResolver;
+import org.thymeleaf.spring5.templateresolver.SpringResourceTemplateResolver;
+import org.thymeleaf.standard.expression.IStandardVariableExpressionEvaluator;
+import org.thymeleaf.standard.expression.StandardExpressions;
+import org.thymeleaf.templateresolver.ITemplateResolver;
 
 
 /**
@@ -56,6 +81,8 @@ public class SpringTemplateEngine
         implements ISpringTemplateEngine, MessageSourceAware {
 
 
+    private static final Logger logger = LoggerFactory.getLogger(SpringTemplateEngine.class);
+
     private static final SpringStandardDialect SPRINGSTANDARD_DIALECT = new SpringStandardDialect();
 
     private MessageSource messageSource = null;
@@ -191,6 +218,212 @@ public void setEnableSpringELCompiler(final boolean enableSpringELCompiler) {
 
 
 
+
+    /**
+     * <p>
+     *   Returns whether the <em>adaptive</em> SpringEL compilation mode should be enabled or not.
+     * </p>
+     * <p>
+     *   (This is just a convenience method, equivalent to calling
+     *   {@link SpringStandardDialect#getEnableAdaptiveSpringELCompiler()} on the dialect instance itself)
+     * </p>
+     * <p>
+     *   In this mode, Thymeleaf counts the evaluations of each expression and only compiles it once it has become
+     *   <em>hot</em>. Also, a separate compiled version of each expression is kept for each of the (few) different
+     *   classes of the objects it is evaluated on, so that expressions executed on polymorphic model objects are not
+     *   reverted to interpreted mode when they meet a class different from the one they were compiled for.
+     *   Compilation status of expressions can be monitored by means of
+     *   {@link org.thymeleaf.spring5.expression.SPELVariableExpressionEvaluator#getAdaptiveCompilationInfo(org.thymeleaf.IEngineConfiguration)}.
+     * </p>
+     * <p>
+     *   When enabled, this mode takes precedence over the one configured by means of
+     *   {@link #setEnableSpringELCompiler(boolean)}.
+     * </p>
+     * <p>
+     *   This flag is set to {@code false} by default.
+     * </p>
+     *
+     * @return {@code true} if SpEL expressions should be adaptively compiled if possible, {@code false} if not.
+     *
+     * @since 3.0.12
+     */
+    public boolean getEnableAdaptiveSpringELCompiler() {
+        final Set<IDialect> dialects = getDialects();
+        for (final IDialect dialect : dialects) {
+            if (dialect instanceof SpringStandardDialect) {
+                return ((SpringStandardDialect) dialect).getEnableAdaptiveSpringELCompiler();
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * <p>
+     *   Sets whether the <em>adaptive</em> SpringEL compilation mode should be enabled or not.
+     * </p>
+     * <p>
+     *   (This is just a convenience method, equivalent to calling
+     *   {@link SpringStandardDialect#setEnableAdaptiveSpringELCompiler(boolean)} on the dialect instance itself)
+     * </p>
+     * <p>
+     *   In this mode, Thymeleaf counts the evaluations of each expression and only compiles it once it has become
+     *   <em>hot</em>. Also, a separate compiled version of each expression is kept for each of the (few) different
+     *   classes of the objects it is evaluated on, so that expressions executed on polymorphic model objects are not
+     *   reverted to interpreted mode when they meet a class different from the one they were compiled for.
+     *   Compilation status of expressions can be monitored by means of
+     *   {@link org.thymeleaf.spring5.expression.SPELVariableExpressionEvaluator#getAdaptiveCompilationInfo(org.thymeleaf.IEngineConfiguration)}.
+     * </p>
+     * <p>
+     *   When enabled, this mode takes precedence over the one configured by means of
+     *   {@link #setEnableSpringELCompiler(boolean)}.
+     * </p>
+     * <p>
+     *   This flag is set to {@code false} by default.
+     * </p>
+     *
+     * @param enableAdaptiveSpringELCompiler {@code true} if SpEL expressions should be adaptively compiled if
+     *                                       possible, {@code false} if not.
+     *
+     * @since 3.0.12
+     */
+    public void setEnableAdaptiveSpringELCompiler(final boolean enableAdaptiveSpringELCompiler) {
+        final Set<IDialect> dialects = getDialects();
+        for (final IDialect dialect : dialects) {
+            if (dialect instanceof SpringStandardDialect) {
+                ((SpringStandardDialect) dialect).setEnableAdaptiveSpringELCompiler(enableAdaptiveSpringELCompiler);
+            }
+        }
+    }
+
+
+
+
+
+    /**
+     * <p>
+     *   Returns the maximum size of the (dedicated) cache of parsed Spring EL expressions.
+     * </p>
+     * <p>
+     *   (This is just a convenience method, equivalent to calling
+     *   {@link SpringStandardDialect#getSpringELExpressionCacheMaxSize()} on the dialect instance itself)
+     * </p>
+     *
+     * @return the maximum size of the Spring EL expression cache.
+     *
+     * @since 3.0.12
+     */
+    public int getSpringELExpressionCacheMaxSize() {
+        final Set<IDialect> dialects = getDialects();
+        for (final IDialect dialect : dialects) {
+            if (dialect instanceof SpringStandardDialect) {
+                return ((SpringStandardDialect) dialect).getSpringELExpressionCacheMaxSize();
+            }
+        }
+        return SpringStandardDialect.DEFAULT_SPRING_EL_EXPRESSION_CACHE_MAX_SIZE;
+    }
+
+
+    /**
+     * <p>
+     *   Sets the maximum size of the (dedicated) cache of parsed Spring EL expressions. A value of zero (or less),
+     *   which is the default, means no dedicated cache will be used, and Spring EL expressions will be cached at
+     *   the engine-wide expression cache instead.
+     * </p>
+     * <p>
+     *   (This is just a convenience method, equivalent to calling
+     *   {@link SpringStandardDialect#setSpringELExpressionCacheMaxSize(int)} on the dialect instance itself)
+     * </p>
+     *
+     * @param springELExpressionCacheMaxSize the maximum size of the Spring EL expression cache.
+     *
+     * @since 3.0.12
+     */
+    public void setSpringELExpressionCacheMaxSize(final int springELExpressionCacheMaxSize) {
+        final Set<IDialect> dialects = getDialects();
+        for (final IDialect dialect : dialects) {
+            if (dialect instanceof SpringStandardDialect) {
+                ((SpringStandardDialect) dialect).setSpringELExpressionCacheMaxSize(springELExpressionCacheMaxSize);
+            }
+        }
+    }
+
+
+    /**
+     * <p>
+     *   Returns the (dedicated) cache of parsed Spring EL expressions used by this template engine, mainly in
+     *   order to monitor its hit, miss and eviction counters. Each template engine has its own cache, even if
+     *   they share the same {@link SpringStandardDialect} instance.
+     * </p>
+     * <p>
+     *   Note calling this method will initialize the template engine, if it has not been initialized yet.
+     * </p>
+     *
+     * @return the Spring EL expression cache, or {@code null} if no dedicated cache is used
+     *         (see {@link #setSpringELExpressionCacheMaxSize(int)}).
+     *
+     * @since 3.0.12
+     */
+    public SPELExpressionCache getSpringELExpressionCache() {
+        return SpringStandardExpressions.getSpringELExpressionCache(getConfiguration());
+    }
+
+
+
+
+
+    /**
+     * <p>
+     *   Returns the patterns specifying which Spring EL expressions are idempotent during a template execution,
+     *   and can therefore have their results memoized.
+     * </p>
+     * <p>
+     *   (This is just a convenience method, equivalent to calling
+     *   {@link SpringStandardDialect#getIdempotentSpringELExpressionPatterns()} on the dialect instance itself)
+     * </p>
+     *
+     * @return the idempotent expression patterns.
+     *
+     * @since 3.0.12
+     */
+    public Set<String> getIdempotentSpringELExpressionPatterns() {
+        final Set<IDialect> dialects = getDialects();
+        for (final IDialect dialect : dialects) {
+            if (dialect instanceof SpringStandardDialect) {
+                return ((SpringStandardDialect) dialect).getIdempotentSpringELExpressionPatterns();
+            }
+        }
+        return Collections.emptySet();
+    }
+
+
+    /**
+     * <p>
+     *   Sets the patterns specifying which Spring EL expressions are idempotent during a template execution
+     *   (e.g. {@code #authorization.expression(*)}), so that their results are memoized and reused in subsequent
+     *   evaluations during the same template execution.
+     * </p>
+     * <p>
+     *   (This is just a convenience method, equivalent to calling
+     *   {@link SpringStandardDialect#setIdempotentSpringELExpressionPatterns(Set)} on the dialect instance itself)
+     * </p>
+     *
+     * @param idempotentSpringELExpressionPatterns the idempotent expression patterns.
+     *
+     * @since 3.0.12
+     */
+    public void setIdempotentSpringELExpressionPatterns(final Set<String> idempotentSpringELExpressionPatterns) {
+        final Set<IDialect> dialects = getDialects();
+        for (final IDialect dialect : dialects) {
+            if (dialect instanceof SpringStandardDialect) {
+                ((SpringStandardDialect) dialect).setIdempotentSpringELExpressionPatterns(idempotentSpringELExpressionPatterns);
+            }
+        }
+    }
+
+
+
+
     /**
      * <p>
      *   Returns whether the {@code <input type="hidden" ...>} marker tags rendered to signal the presence
@@ -277,6 +510,195 @@ public void setRenderHiddenMarkersBeforeCheckboxes(final boolean renderHiddenMar
 
 
 
+    /**
+     * <p>
+     *   Pre-warms the Spring EL expression cache by parsing all the <tt>${...}</tt> and <tt>*{...}</tt>
+     *   expressions found in the templates matching the specified location patterns, so that the first
+     *   requests served after startup do not have to pay the cost of parsing them.
+     * </p>
+     * <p>
+     *   Templates are looked up by means of the {@link SpringResourceTemplateResolver} instances configured at
+     *   this engine (see {@link SpringResourceTemplateResolver#findTemplateResources(String...)}). If no location
+     *   patterns are specified, every template under the prefix of each of these resolvers will be scanned.
+     * </p>
+     * <p>
+     *   This method will initialize the template engine if it has not been initialized yet. It is normally
+     *   called once at application startup, before the application is considered ready for serving requests.
+     * </p>
+     *
+     * @param templateLocationPatterns the location patterns of the templates to be scanned (might be empty).
+     * @return the number of expressions that were parsed and cached.
+     *
+     * @since 3.0.12
+     */
+    public int prewarmSpringELExpressions(final String... templateLocationPatterns) {
+        return prewarmSpringELExpressions(null, templateLocationPatterns);
+    }
+
+
+    /**
+     * <p>
+     *   Pre-warms the Spring EL expression cache by parsing all the <tt>${...}</tt> and <tt>*{...}</tt>
+     *   expressions found in the templates matching the specified location patterns, so that the first
+     *   requests served after startup do not have to pay the cost of parsing them.
+     * </p>
+     * <p>
+     *   Templates are looked up by means of the {@link SpringResourceTemplateResolver} instances configured at
+     *   this engine (see {@link SpringResourceTemplateResolver#findTemplateResources(String...)}). If no location
+     *   patterns are specified, every template under the prefix of each of these resolvers will be scanned.
+     * </p>
+     * <p>
+     *   If a {@link ForkJoinPool} is specified, both the scanning of templates and the parsing of expressions
+     *   will be performed in parallel on it. If {@code null}, everything will be performed in the calling thread.
+     * </p>
+     * <p>
+     *   This method will initialize the template engine if it has not been initialized yet. It is normally
+     *   called once at application startup, before the application is considered ready for serving requests.
+     * </p>
+     *
+     * @param forkJoinPool the pool to be used for parallel pre-warming (might be null).
+     * @param templateLocationPatterns the location patterns of the templates to be scanned (might be empty).
+     * @return the number of expressions that were parsed and cached.
+     *
+     * @since 3.0.12
+     */
+    public int prewarmSpringELExpressions(
+            final ForkJoinPool forkJoinPool, final String... templateLocationPatterns) {
+
+        final IEngineConfiguration configuration = getConfiguration();
+
+        final IStandardVariableExpressionEvaluator evaluator =
+                StandardExpressions.getVariableExpressionEvaluator(configuration);
+        if (!(evaluator instanceof SPELVariableExpressionEvaluator)) {
+            // Nothing to be pre-warmed: Spring EL is not the expression language being used
+            return 0;
+        }
+        final SPELVariableExpressionEvaluator spelEvaluator = (SPELVariableExpressionEvaluator) evaluator;
+
+        final Map<Resource,Charset> templateResources = findPrewarmTemplateResources(templateLocationPatterns);
+        if (templateResources.isEmpty()) {
+            return 0;
+        }
+
+        final int prewarmed;
+        if (forkJoinPool == null) {
+            final Set<String> expressions = new LinkedHashSet<String>();
+            for (final Map.Entry<Resource,Charset> templateResource : templateResources.entrySet()) {
+                expressions.addAll(extractPrewarmExpressions(templateResource.getKey(), templateResource.getValue()));
+            }
+            int count = 0;
+            for (final String expression : expressions) {
+                if (spelEvaluator.prewarmExpression(configuration, expression)) {
+                    count++;
+                }
+            }
+            prewarmed = count;
+        } else {
+            try {
+                prewarmed = forkJoinPool.submit(() -> {
+                    final Set<String> expressions =
+                            templateResources.entrySet().parallelStream()
+                                    .flatMap(entry -> extractPrewarmExpressions(entry.getKey(), entry.getValue()).stream())
+                                    .collect(Collectors.toSet());
+                    return (int) expressions.parallelStream()
+                                    .filter(expression -> spelEvaluator.prewarmExpression(configuration, expression))
+                                    .count();
+                }).get().intValue();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TemplateProcessingException("Pre-warming of Spring EL expressions was interrupted", e);
+            } catch (final ExecutionException e) {
+                throw new TemplateProcessingException("Error pre-warming Spring EL expressions", e.getCause());
+            }
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("[THYMELEAF] Pre-warmed {} Spring EL expressions from {} templates",
+                    Integer.valueOf(prewarmed), Integer.valueOf(templateResources.size()));
+        }
+
+        return prewarmed;
+
+    }
+
+
+    private Map<Resource,Charset> findPrewarmTemplateResources(final String[] templateLocationPatterns) {
+
+        final boolean patternsSpecified = (templateLocationPatterns != null && templateLocationPatterns.length > 0);
+
+        final Map<Resource,Charset> templateResources = new LinkedHashMap<Resource,Charset>();
+        boolean springResourceTemplateResolverFound = false;
+        for (final ITemplateResolver templateResolver : getTemplateResolvers()) {
+            if (templateResolver instanceof SpringResourceTemplateResolver) {
+                final SpringResourceTemplateResolver springResourceTemplateResolver =
+                        (SpringResourceTemplateResolver) templateResolver;
+                springResourceTemplateResolverFound = true;
+                addPrewarmTemplateResources(
+                        templateResources, springResourceTemplateResolver,
+                        springResourceTemplateResolver.getCharacterEncoding(), templateLocationPatterns);
+            }
+        }
+        if (!springResourceTemplateResolverFound && patternsSpecified) {
+            // No resolver to ask: patterns will be resolved as standard Spring resource locations
+            addPrewarmTemplateResources(
+                    templateResources, new SpringResourceTemplateResolver(), null, templateLocationPatterns);
+        }
+
+        return templateResources;
+
+    }
+
+
+    private static void addPrewarmTemplateResources(
+            final Map<Resource,Charset> templateResources,
+            final SpringResourceTemplateResolver templateResolver, final String characterEncoding,
+            final String[] templateLocationPatterns) {
+
+        final Charset charset =
+                (characterEncoding == null? StandardCharsets.UTF_8 : Charset.forName(characterEncoding));
+        try {
+            for (final Resource resource : templateResolver.findTemplateResources(templateLocationPatterns)) {
+                if (resource.isReadable() && !templateResources.containsKey(resource)) {
+                    templateResources.put(resource, charset);
+                }
+            }
+        } catch (final IOException e) {
+            logger.warn("[THYMELEAF] Could not resolve templates for pre-warming Spring EL expressions", e);
+        }
+
+    }
+
+
+    private static Set<String> extractPrewarmExpressions(final Resource resource, final Charset charset) {
+        try (final InputStream inputStream = resource.getInputStream()) {
+            return SPELExpressionExtractor.extractExpressions(StreamUtils.copyToString(inputStream, charset));
+        } catch (final IOException e) {
+            logger.warn("[THYMELEAF] Could not read template " + resource + " for pre-warming Spring EL expressions", e);
+            return Collections.emptySet();
+        }
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Completely clears the Template Cache, and also the dedicated cache of parsed Spring EL expressions
+     *   (if any, see {@link SpringStandardDialect#setSpringELExpressionCacheMaxSize(int)}).
+     * </p>
+     */
+    @Override
+    public void clearTemplateCache() {
+        super.clearTemplateCache();
+        final SPELExpressionCache springELExpressionCache = getSpringELExpressionCache();
+        if (springELExpressionCache != null) {
+            springELExpressionCache.clear();
+        }
+    }
+
+
+
+
     @Override
     protected final void initializeSpecific() {
 
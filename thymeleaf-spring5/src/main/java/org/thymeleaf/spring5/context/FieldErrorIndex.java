@@ -0,0 +1,246 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.context;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   Index of the errors contained in an {@link Errors} object (normally a {@code BindingResult}), built in a single
+ *   pass so that the errors for a specific field can be obtained with a map lookup instead of the linear scan
+ *   performed by {@link Errors#getFieldErrors(String)}. Error messages are resolved only once per error and
+ *   HTML escape setting.
+ * </p>
+ * <p>
+ *   Instances of this class are obtained by means of {@link IThymeleafRequestContext#getFieldErrorIndex(Errors)},
+ *   and are therefore kept for the whole template execution. They are NOT thread-safe.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+public final class FieldErrorIndex {
+
+    private static final String ALL_FIELDS = "*";
+
+    private final IThymeleafRequestContext requestContext;
+    private final Errors errors;
+
+    private final List<ObjectError> allErrors;
+    private final List<ObjectError> globalErrors;
+    private final List<FieldError> fieldErrors;
+    private final Map<String,List<FieldError>> fieldErrorsByField;
+
+    private Map<ObjectError,String> messages = null;
+    private Map<ObjectError,String> htmlEscapedMessages = null;
+
+
+
+    /**
+     * <p>
+     *   Builds a new index for the specified errors.
+     * </p>
+     *
+     * @param requestContext the request context, used for resolving error messages.
+     * @param errors the errors to be indexed.
+     * @return the new index.
+     */
+    public static FieldErrorIndex forErrors(final IThymeleafRequestContext requestContext, final Errors errors) {
+        Validate.notNull(requestContext, "Request Context cannot be null");
+        Validate.notNull(errors, "Errors cannot be null");
+        return new FieldErrorIndex(requestContext, errors);
+    }
+
+
+
+    private FieldErrorIndex(final IThymeleafRequestContext requestContext, final Errors errors) {
+
+        super();
+
+        this.requestContext = requestContext;
+        this.errors = errors;
+
+        this.allErrors = errors.getAllErrors();
+
+        final List<ObjectError> globalErrors = new ArrayList<ObjectError>(2);
+        final List<FieldError> fieldErrors = new ArrayList<FieldError>(this.allErrors.size());
+        final Map<String,List<FieldError>> fieldErrorsByField = new HashMap<String, List<FieldError>>(16);
+        for (final ObjectError error : this.allErrors) {
+            if (error instanceof FieldError) {
+                final FieldError fieldError = (FieldError) error;
+                fieldErrors.add(fieldError);
+                List<FieldError> errorsForField = fieldErrorsByField.get(fieldError.getField());
+                if (errorsForField == null) {
+                    errorsForField = new ArrayList<FieldError>(2);
+                    fieldErrorsByField.put(fieldError.getField(), errorsForField);
+                }
+                errorsForField.add(fieldError);
+            } else {
+                globalErrors.add(error);
+            }
+        }
+
+        this.globalErrors = Collections.unmodifiableList(globalErrors);
+        this.fieldErrors = Collections.unmodifiableList(fieldErrors);
+        this.fieldErrorsByField = fieldErrorsByField;
+
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the indexed errors object.
+     * </p>
+     *
+     * @return the errors object.
+     */
+    public Errors getErrors() {
+        return this.errors;
+    }
+
+
+    /**
+     * <p>
+     *   Returns all the global (not field-specific) errors, equivalent to {@link Errors#getGlobalErrors()}.
+     * </p>
+     *
+     * @return the global errors.
+     */
+    public List<ObjectError> getGlobalErrors() {
+        return this.globalErrors;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the errors for the specified field, equivalent to {@link Errors#getFieldErrors(String)}.
+     * </p>
+     *
+     * @param field the field name (relative to the nested path of the errors object), or {@code "*"} for all fields.
+     * @return the field errors.
+     */
+    public List<FieldError> getFieldErrors(final String field) {
+
+        if (ALL_FIELDS.equals(field)) {
+            return this.fieldErrors;
+        }
+
+        // Wildcards and property keys needing canonicalization are left to the Errors implementation
+        if (field == null || field.endsWith(ALL_FIELDS) || field.indexOf('\'') >= 0 || field.indexOf('"') >= 0) {
+            return this.errors.getFieldErrors(field);
+        }
+
+        final String nestedPath = this.errors.getNestedPath();
+        final List<FieldError> errorsForField =
+                this.fieldErrorsByField.get(nestedPath.length() == 0? field : nestedPath + field);
+        return (errorsForField == null? Collections.<FieldError>emptyList() : errorsForField);
+
+    }
+
+
+    /**
+     * <p>
+     *   Returns the errors that a bind status for the specified expression would report: global errors if
+     *   the expression is {@code null}, all errors if it is {@code "*"}, and field errors otherwise.
+     * </p>
+     *
+     * @param expression the bind expression (see {@link IThymeleafBindStatus#getExpression()}).
+     * @return the errors.
+     */
+    public List<? extends ObjectError> getErrors(final String expression) {
+        if (expression == null) {
+            return this.globalErrors;
+        }
+        if (ALL_FIELDS.equals(expression)) {
+            return this.allErrors;
+        }
+        return getFieldErrors(expression);
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Resolves the message for the specified error, which will only be actually resolved the first time
+     *   it is requested for each HTML escape setting.
+     * </p>
+     *
+     * @param error the error.
+     * @param htmlEscape whether the message should be HTML-escaped.
+     * @return the resolved message.
+     */
+    public String getMessage(final ObjectError error, final boolean htmlEscape) {
+
+        Map<ObjectError,String> messagesForEscape = (htmlEscape? this.htmlEscapedMessages : this.messages);
+        if (messagesForEscape == null) {
+            messagesForEscape = new IdentityHashMap<ObjectError, String>(this.allErrors.size() + 2);
+            if (htmlEscape) {
+                this.htmlEscapedMessages = messagesForEscape;
+            } else {
+                this.messages = messagesForEscape;
+            }
+        }
+
+        String message = messagesForEscape.get(error);
+        if (message == null) {
+            message = this.requestContext.getMessage(error, htmlEscape);
+            messagesForEscape.put(error, message);
+        }
+        return message;
+
+    }
+
+
+    /**
+     * <p>
+     *   Resolves the messages for all the errors that a bind status for the specified expression would report
+     *   (see {@link #getErrors(String)}).
+     * </p>
+     *
+     * @param expression the bind expression (see {@link IThymeleafBindStatus#getExpression()}).
+     * @param htmlEscape whether the messages should be HTML-escaped.
+     * @return the resolved messages.
+     */
+    public String[] getErrorMessages(final String expression, final boolean htmlEscape) {
+        final List<? extends ObjectError> errorsForExpression = getErrors(expression);
+        final String[] errorMessages = new String[errorsForExpression.size()];
+        for (int i = 0; i < errorMessages.length; i++) {
+            errorMessages[i] = getMessage(errorsForExpression.get(i), htmlEscape);
+        }
+        return errorMessages;
+    }
+
+
+}
@@ -38,6 +38,18 @@
  *   needing to know if it is a Spring WebMVC or Spring WebFlux implementation of this
  *   {@code RequestContext}.
  * </p>
+ * <p>
+ *   Since 3.0.12, the implementations of this interface provided by Thymeleaf cache the bind status objects
+ *   returned by {@link #getBindStatus(String, boolean)} for the whole life of the request context (i.e. the
+ *   template execution), so that all the processors and expression utilities referring to the same
+ *   field share the same bind status.
+ * </p>
+ * <p>
+ *   Also since 3.0.12, the {@link FieldErrorIndex} objects returned by {@link #getFieldErrorIndex(Errors)} are
+ *   cached in the same way, so that the errors of a form are indexed and their messages resolved only once
+ *   per template execution. This method has a default implementation (not caching), so that
+ *   existing implementations of this interface are not affected.
+ * </p>
  *
  * @see org.thymeleaf.spring5.context.webmvc.SpringWebMvcThymeleafRequestContext
  * @see SpringWebFluxThymeleafRequestContext
@@ -90,5 +102,23 @@ public interface IThymeleafRequestContext {
     public IThymeleafBindStatus getBindStatus(String path) throws IllegalStateException;
     public IThymeleafBindStatus getBindStatus(String path, boolean htmlEscape) throws IllegalStateException;
 
+    /**
+     * <p>
+     *   Returns the {@link FieldErrorIndex} for the specified errors.
+     * </p>
+     * <p>
+     *   The default implementation builds a new index on every call. Implementations are expected to override
+     *   this method in order to keep the index for the whole template execution.
+     * </p>
+     *
+     * @param errors the errors to be indexed.
+     * @return the index for the specified errors.
+     *
+     * @since 3.0.12
+     */
+    public default FieldErrorIndex getFieldErrorIndex(final Errors errors) {
+        return FieldErrorIndex.forErrors(this, errors);
+    }
+
 
 }
@@ -0,0 +1,50 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.context;
+
+/**
+ * <p>
+ *   Interface implemented by engine contexts able to report when the set of variables visible to expressions
+ *   might have changed.
+ * </p>
+ * <p>
+ *   The <em>variables version</em> of a context is a counter that changes every time a variable is set or
+ *   removed, or a context level (and its local variables) is discarded. As long as it does not change, the
+ *   result of resolving a variable by name will not change either, which allows expression evaluation
+ *   infrastructure to keep the variables it resolves in small caches
+ *   (see {@link org.thymeleaf.spring5.expression.SPELContextMapWrapper}).
+ * </p>
+ * <p>
+ *   Note modifications performed directly on the structures backing the context variables (e.g. request or
+ *   exchange attributes modified without going through the context) are not tracked.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+public interface IVersionedVariablesContext {
+
+
+    public int getVariablesVersion();
+
+
+}
@@ -20,10 +20,12 @@
 package org.thymeleaf.spring5.context;
 
 import org.springframework.context.ApplicationContext;
+import org.springframework.expression.EvaluationContext;
 import org.thymeleaf.context.IExpressionContext;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.spring5.expression.IThymeleafEvaluationContext;
 import org.thymeleaf.spring5.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.spring5.expression.ThymeleafEvaluationContextWrapper;
 import org.thymeleaf.spring5.naming.SpringContextVariableNames;
 
 /**
@@ -82,15 +84,22 @@ public static ApplicationContext getApplicationContext(final ITemplateContext co
         // The ThymeleafEvaluationContext is set into the model by ThymeleafView (or wrapped by the SPEL evaluator)
         final IThymeleafEvaluationContext evaluationContext =
                 (IThymeleafEvaluationContext) context.getVariable(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME);
-        if (evaluationContext == null || !(evaluationContext instanceof ThymeleafEvaluationContext)) {
-            return null;
-        }
-        // Only when the evaluation context is a ThymeleafEvaluationContext we can access the ApplicationContext.
+        // Only when the evaluation context is a ThymeleafEvaluationContext (or the lightweight per-execution wrapper
+        // created by ThymeleafView around a shared one) we can access the ApplicationContext.
         // The reason is it could also be a wrapper on another EvaluationContext implementation, created at the
         // SPELVariableExpressionEvaluator on-the-fly (where ApplicationContext is not available because there might
         // even not exist one), instead of at ThymeleafView (where we are sure we are executing a Spring View and
         // have an ApplicationContext available).
-        return ((ThymeleafEvaluationContext)evaluationContext).getApplicationContext();
+        if (evaluationContext instanceof ThymeleafEvaluationContext) {
+            return ((ThymeleafEvaluationContext)evaluationContext).getApplicationContext();
+        }
+        if (evaluationContext instanceof ThymeleafEvaluationContextWrapper) {
+            final EvaluationContext delegate = ((ThymeleafEvaluationContextWrapper)evaluationContext).getDelegate();
+            if (delegate instanceof ThymeleafEvaluationContext) {
+                return ((ThymeleafEvaluationContext)delegate).getApplicationContext();
+            }
+        }
+        return null;
     }
 
 
@@ -42,6 +42,7 @@
 import org.thymeleaf.engine.TemplateData;
 import org.thymeleaf.inline.IInliner;
 import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.spring5.context.IVersionedVariablesContext;
 import org.thymeleaf.spring5.context.SpringContextUtils;
 import org.thymeleaf.util.Validate;
 import reactor.core.publisher.Mono;
@@ -66,7 +67,7 @@
  *
  */
 public class SpringWebFluxEngineContext
-        extends AbstractEngineContext implements IEngineContext, ISpringWebFluxContext {
+        extends AbstractEngineContext implements IEngineContext, ISpringWebFluxContext, IVersionedVariablesContext {
 
 
     private static final String PARAM_VARIABLE_NAME = "param";
@@ -80,6 +81,9 @@
     private final Map<String,Object> requestParametersVariablesMap;
     private final Map<String,Object> sessionAttributesVariablesMap;
 
+    // Changed every time the variables visible from this context might have changed
+    private int variablesVersion = 0;
+
 
 
 
@@ -190,6 +194,7 @@ public void setVariable(final String name, final Object value) {
                     "Cannot set variable called '" + name + "' into web variables map: such name is a reserved word");
         }
         this.webExchangeAttributesVariablesMap.setVariable(name, value);
+        this.variablesVersion++;
     }
 
 
@@ -206,6 +211,7 @@ public void setVariables(final Map<String, Object> variables) {
             }
         }
         this.webExchangeAttributesVariablesMap.setVariables(variables);
+        this.variablesVersion++;
     }
 
 
@@ -216,6 +222,7 @@ public void removeVariable(final String name) {
                     "Cannot remove variable called '" + name + "' in web variables map: such name is a reserved word");
         }
         this.webExchangeAttributesVariablesMap.removeVariable(name);
+        this.variablesVersion++;
     }
 
 
@@ -314,6 +321,24 @@ public void increaseLevel() {
     @Override
     public void decreaseLevel() {
         this.webExchangeAttributesVariablesMap.decreaseLevel();
+        this.variablesVersion++;
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the current version of the variables in this context, which will change every time
+     *   a variable is set or removed, or the context level is decreased.
+     * </p>
+     *
+     * @return the variables version.
+     * @since 3.0.12
+     */
+    @Override
+    public int getVariablesVersion() {
+        return this.variablesVersion;
     }
 
 
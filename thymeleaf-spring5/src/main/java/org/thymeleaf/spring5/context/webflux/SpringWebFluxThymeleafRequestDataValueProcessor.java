@@ -19,17 +19,28 @@
  */
 package org.thymeleaf.spring5.context.webflux;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 import org.springframework.web.reactive.result.view.RequestDataValueProcessor;
 import org.springframework.web.server.ServerWebExchange;
 import org.thymeleaf.spring5.context.IThymeleafRequestDataValueProcessor;
+import org.thymeleaf.spring5.requestdata.IRequestDataValueProcessorCapabilities;
+import org.thymeleaf.spring5.requestdata.RequestDataValueProcessorUtils;
 
 /**
  * <p>
  *   Implementation of the {@link IThymeleafRequestDataValueProcessor} interface, meant to wrap a Spring
  *   {@link RequestDataValueProcessor} object.
  * </p>
+ * <p>
+ *   As instances of this class live for a single request, the result of {@code getExtraHiddenFields()} is
+ *   computed only once for each HTTP method specified at the latest call to {@code processAction(...)} when the
+ *   processor is known to return request-constant extra hidden fields, and calls to the operations that the
+ *   processor is known to perform as identity are skipped (see
+ *   {@link RequestDataValueProcessorUtils#getCapabilities(Object)}).
+ * </p>
  *
  * @see RequestDataValueProcessor
  *
@@ -42,18 +53,26 @@ class SpringWebFluxThymeleafRequestDataValueProcessor implements IThymeleafReque
 
     private final RequestDataValueProcessor requestDataValueProcessor;
     private final ServerWebExchange exchange;
+    private final IRequestDataValueProcessorCapabilities capabilities;
+
+    // Extra hidden fields can depend on the HTTP method of the form (e.g. Spring Security's CSRF token is
+    // not added to GET forms), which the processor learns through processAction(...)
+    private String lastActionHttpMethod = null;
+    private Map<String,Map<String,String>> extraHiddenFieldsByHttpMethod = null;
 
     SpringWebFluxThymeleafRequestDataValueProcessor(
             final RequestDataValueProcessor requestDataValueProcessor, final ServerWebExchange exchange) {
         super();
         this.requestDataValueProcessor = requestDataValueProcessor;
         this.exchange = exchange;
+        this.capabilities = RequestDataValueProcessorUtils.getCapabilities(requestDataValueProcessor);
     }
 
     @Override
     public String processAction(final String action, final String httpMethod) {
-        if (this.requestDataValueProcessor == null) {
-            // The presence of a Request Data Value Processor is optional
+        this.lastActionHttpMethod = httpMethod;
+        if (this.capabilities.isProcessActionIdentity()) {
+            // No Request Data Value Processor (it is optional), or one known to return the action unmodified
             return action;
         }
         return this.requestDataValueProcessor.processAction(this.exchange, action, httpMethod);
@@ -61,8 +80,8 @@ public String processAction(final String action, final String httpMethod) {
 
     @Override
     public String processFormFieldValue(final String name, final String value, final String type) {
-        if (this.requestDataValueProcessor == null) {
-            // The presence of a Request Data Value Processor is optional
+        if (this.capabilities.isProcessFormFieldValueIdentity()) {
+            // No Request Data Value Processor (it is optional), or one known to return the value unmodified
             return value;
         }
         return this.requestDataValueProcessor.processFormFieldValue(this.exchange, name, value, type);
@@ -74,13 +93,26 @@ public Map<String, String> getExtraHiddenFields() {
             // The presence of a Request Data Value Processor is optional
             return null;
         }
-        return this.requestDataValueProcessor.getExtraHiddenFields(this.exchange);
+        if (!this.capabilities.isExtraHiddenFieldsRequestConstant()) {
+            // Hidden fields might depend on the action of each form (as per the latest processAction(...) call)
+            return this.requestDataValueProcessor.getExtraHiddenFields(this.exchange);
+        }
+        if (this.extraHiddenFieldsByHttpMethod == null) {
+            this.extraHiddenFieldsByHttpMethod = new HashMap<String, Map<String, String>>(2, 1.0f);
+        } else if (this.extraHiddenFieldsByHttpMethod.containsKey(this.lastActionHttpMethod)) {
+            return this.extraHiddenFieldsByHttpMethod.get(this.lastActionHttpMethod);
+        }
+        final Map<String,String> extraHiddenFields = this.requestDataValueProcessor.getExtraHiddenFields(this.exchange);
+        final Map<String,String> result =
+                (extraHiddenFields == null? null : Collections.unmodifiableMap(extraHiddenFields));
+        this.extraHiddenFieldsByHttpMethod.put(this.lastActionHttpMethod, result);
+        return result;
     }
 
     @Override
     public String processUrl(final String url) {
-        if (this.requestDataValueProcessor == null) {
-            // The presence of a Request Data Value Processor is optional
+        if (this.capabilities.isProcessUrlIdentity()) {
+            // No Request Data Value Processor (it is optional), or one known to return the URL unmodified
             return url;
         }
         return this.requestDataValueProcessor.processUrl(this.exchange, url);
@@ -20,6 +20,8 @@
 package org.thymeleaf.spring5.context.webmvc;
 
 import java.beans.PropertyEditor;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.springframework.validation.Errors;
 import org.springframework.web.servlet.support.BindStatus;
@@ -41,7 +43,11 @@
  */
 class SpringWebMvcThymeleafBindStatus implements IThymeleafBindStatus {
 
+    // Marker for value classes for which no editor could be found
+    private static final Object NO_EDITOR = new Object();
+
     private final BindStatus bindStatus;
+    private Map<Class<?>,Object> editorsByValueClass = null;
 
 
     SpringWebMvcThymeleafBindStatus(final BindStatus bindStatus) {
@@ -123,7 +129,20 @@ public PropertyEditor getEditor() {
 
     @Override
     public PropertyEditor findEditor(final Class<?> valueClass) {
-        return this.bindStatus.findEditor(valueClass);
+        // Editor lookups are expensive (they might imply navigating the bound bean for computing the property type
+        // descriptor, and creating a new conversion-service-backed editor) and for multi-valued fields they are
+        // performed for each element, so we cache them. Note bind status objects are cached by the request context
+        // per bind path for the whole template execution.
+        if (this.editorsByValueClass == null) {
+            this.editorsByValueClass = new HashMap<Class<?>, Object>(2, 1.0f);
+        }
+        final Object cached = this.editorsByValueClass.get(valueClass);
+        if (cached != null) {
+            return (cached == NO_EDITOR? null : (PropertyEditor) cached);
+        }
+        final PropertyEditor editor = this.bindStatus.findEditor(valueClass);
+        this.editorsByValueClass.put(valueClass, (editor == null? NO_EDITOR : editor));
+        return editor;
     }
 
 
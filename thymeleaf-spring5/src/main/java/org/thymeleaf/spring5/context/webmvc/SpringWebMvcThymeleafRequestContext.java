@@ -19,6 +19,8 @@
  */
 package org.thymeleaf.spring5.context.webmvc;
 
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -33,6 +35,7 @@
 import org.springframework.ui.context.Theme;
 import org.springframework.validation.Errors;
 import org.springframework.web.servlet.support.RequestContext;
+import org.thymeleaf.spring5.context.FieldErrorIndex;
 import org.thymeleaf.spring5.context.IThymeleafBindStatus;
 import org.thymeleaf.spring5.context.IThymeleafRequestContext;
 import org.thymeleaf.spring5.context.IThymeleafRequestDataValueProcessor;
@@ -57,6 +60,14 @@ public class SpringWebMvcThymeleafRequestContext implements IThymeleafRequestCon
     private final HttpServletRequest httpServletRequest;
     private final SpringWebMvcThymeleafRequestDataValueProcessor thymeleafRequestDataValueProcessor;
 
+    // Bind status objects are expensive to compute and normally needed by several processors and expression
+    // utilities for the same field (th:field, th:errors, th:errorclass, #fields...), so they are cached for the
+    // whole life of this request context, i.e. the template execution.
+    private Map<String,IThymeleafBindStatus> bindStatusCache = null;
+    private Map<String,IThymeleafBindStatus> htmlEscapedBindStatusCache = null;
+    // Errors objects are indexed by identity, as they are already cached by name
+    private Map<Errors,FieldErrorIndex> fieldErrorIndexCache = null;
+
 
     public SpringWebMvcThymeleafRequestContext(
             final RequestContext requestContext, final HttpServletRequest httpServletRequest) {
@@ -99,11 +110,13 @@ public TimeZone getTimeZone() {
     @Override
     public void changeLocale(final Locale locale) {
         this.requestContext.changeLocale(locale);
+        clearBindStatusCache();
     }
 
     @Override
     public void changeLocale(final Locale locale, final TimeZone timeZone) {
         this.requestContext.changeLocale(locale, timeZone);
+        clearBindStatusCache();
     }
 
     @Override
@@ -219,12 +232,66 @@ public IThymeleafRequestDataValueProcessor getRequestDataValueProcessor() {
 
     @Override
     public IThymeleafBindStatus getBindStatus(final String path) throws IllegalStateException {
-        return Optional.ofNullable(this.requestContext.getBindStatus(path)).map(SpringWebMvcThymeleafBindStatus::new).orElse(null);
+        // Equivalent to RequestContext#getBindStatus(path), which applies the default HTML escape setting
+        return getBindStatus(path, isDefaultHtmlEscape());
     }
 
     @Override
     public IThymeleafBindStatus getBindStatus(final String path, final boolean htmlEscape) throws IllegalStateException {
-        return Optional.ofNullable(this.requestContext.getBindStatus(path, htmlEscape)).map(SpringWebMvcThymeleafBindStatus::new).orElse(null);
+        Map<String,IThymeleafBindStatus> cache = (htmlEscape? this.htmlEscapedBindStatusCache : this.bindStatusCache);
+        if (cache == null) {
+            cache = new HashMap<String, IThymeleafBindStatus>(16);
+            if (htmlEscape) {
+                this.htmlEscapedBindStatusCache = cache;
+            } else {
+                this.bindStatusCache = cache;
+            }
+        }
+        IThymeleafBindStatus bindStatus = cache.get(path);
+        if (bindStatus == null) {
+            bindStatus = Optional.ofNullable(this.requestContext.getBindStatus(path, htmlEscape)).map(SpringWebMvcThymeleafBindStatus::new).orElse(null);
+            if (bindStatus != null && isBoundToModelErrors(path)) {
+                cache.put(path, bindStatus);
+            }
+        }
+        return bindStatus;
+    }
+
+
+    /*
+     * BindStatus objects can only be cached by path if they are built from an Errors object in the model. If not,
+     * their target is resolved by bean name from the model or the request attributes, where local variables
+     * (th:each, th:with, fragment parameters...) also live, so the same path can refer to different objects.
+     */
+    private boolean isBoundToModelErrors(final String path) {
+        // Bean name is computed in the same way as BindStatus does
+        final int dotPos = path.indexOf('.');
+        final String beanName = (dotPos == -1? path : path.substring(0, dotPos));
+        // Errors objects are kept by the RequestContext itself once obtained, so this is a map lookup
+        return this.requestContext.getErrors(beanName, false) != null;
+    }
+
+
+    @Override
+    public FieldErrorIndex getFieldErrorIndex(final Errors errors) {
+        Validate.notNull(errors, "Errors cannot be null");
+        if (this.fieldErrorIndexCache == null) {
+            this.fieldErrorIndexCache = new IdentityHashMap<Errors, FieldErrorIndex>(4);
+        }
+        FieldErrorIndex fieldErrorIndex = this.fieldErrorIndexCache.get(errors);
+        if (fieldErrorIndex == null) {
+            fieldErrorIndex = FieldErrorIndex.forErrors(this, errors);
+            this.fieldErrorIndexCache.put(errors, fieldErrorIndex);
+        }
+        return fieldErrorIndex;
+    }
+
+
+    private void clearBindStatusCache() {
+        // Error messages in bind status objects and field error indexes are resolved for the current locale
+        this.bindStatusCache = null;
+        this.htmlEscapedBindStatusCache = null;
+        this.fieldErrorIndexCache = null;
     }
 
 
@@ -30,6 +30,7 @@
 import org.thymeleaf.processor.IProcessor;
 import org.thymeleaf.spring5.SpringTemplateEngine;
 import org.thymeleaf.spring5.context.SpringContextUtils;
+import org.thymeleaf.spring5.expression.SPELExpressionCache;
 import org.thymeleaf.spring5.expression.SPELVariableExpressionEvaluator;
 import org.thymeleaf.spring5.expression.SpringStandardConversionService;
 import org.thymeleaf.spring5.expression.SpringStandardExpressionObjectFactory;
@@ -48,6 +49,7 @@
 import org.thymeleaf.spring5.processor.SpringOptionFieldTagProcessor;
 import org.thymeleaf.spring5.processor.SpringOptionInSelectFieldTagProcessor;
 import org.thymeleaf.spring5.processor.SpringSelectFieldTagProcessor;
+import org.thymeleaf.spring5.processor.SpringSelectOptionsTagProcessor;
 import org.thymeleaf.spring5.processor.SpringSrcTagProcessor;
 import org.thymeleaf.spring5.processor.SpringTextareaFieldTagProcessor;
 import org.thymeleaf.spring5.processor.SpringUErrorsTagProcessor;
@@ -63,6 +65,7 @@
 import org.thymeleaf.standard.processor.StandardSrcTagProcessor;
 import org.thymeleaf.standard.processor.StandardValueTagProcessor;
 import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.util.PatternSpec;
 
 /**
  * <p>
@@ -98,10 +101,14 @@ public class SpringStandardDialect extends StandardDialect {
     public static final int PROCESSOR_PRECEDENCE = 1000;
 
     public static final boolean DEFAULT_ENABLE_SPRING_EL_COMPILER = false;
+    public static final boolean DEFAULT_ENABLE_ADAPTIVE_SPRING_EL_COMPILER = false;
     public static final boolean DEFAULT_RENDER_HIDDEN_MARKERS_BEFORE_CHECKBOXES = false;
+    public static final int DEFAULT_SPRING_EL_EXPRESSION_CACHE_MAX_SIZE = 0;
 
     private boolean enableSpringELCompiler = DEFAULT_ENABLE_SPRING_EL_COMPILER;
+    private boolean enableAdaptiveSpringELCompiler = DEFAULT_ENABLE_ADAPTIVE_SPRING_EL_COMPILER;
     private boolean renderHiddenMarkersBeforeCheckboxes = DEFAULT_RENDER_HIDDEN_MARKERS_BEFORE_CHECKBOXES;
+    private int springELExpressionCacheMaxSize = DEFAULT_SPRING_EL_EXPRESSION_CACHE_MAX_SIZE;
 
     private static final Map<String,Object> REACTIVE_MODEL_ADDITIONS_EXECUTION_ATTRIBUTES;
 
@@ -117,6 +124,7 @@ public class SpringStandardDialect extends StandardDialect {
     // These variables will be initialized lazily following the model applied in the extended StandardDialect.
     private IExpressionObjectFactory expressionObjectFactory = null;
     private IStandardConversionService conversionService = null;
+    private final PatternSpec idempotentSpringELExpressionPatternSpec = new PatternSpec();
     
 
 
@@ -218,6 +226,67 @@ public void setEnableSpringELCompiler(final boolean enableSpringELCompiler) {
 
 
 
+    /**
+     * <p>
+     *   Returns whether the <em>adaptive</em> SpringEL compilation mode should be enabled or not.
+     * </p>
+     * <p>
+     *   In this mode, Thymeleaf counts the evaluations of each expression and only compiles it once it has become
+     *   <em>hot</em>. Also, a separate compiled version of each expression is kept for each of the (few) different
+     *   classes of the objects it is evaluated on, so that expressions executed on polymorphic model objects are not
+     *   reverted to interpreted mode when they meet a class different from the one they were compiled for.
+     *   Compilation status of expressions can be monitored by means of
+     *   {@link SPELVariableExpressionEvaluator#getAdaptiveCompilationInfo(org.thymeleaf.IEngineConfiguration)}.
+     * </p>
+     * <p>
+     *   When enabled, this mode takes precedence over the one configured by means of
+     *   {@link #setEnableSpringELCompiler(boolean)}.
+     * </p>
+     * <p>
+     *   This flag is set to {@code false} by default.
+     * </p>
+     *
+     * @return {@code true} if SpEL expressions should be adaptively compiled if possible, {@code false} if not.
+     *
+     * @since 3.0.12
+     */
+    public boolean getEnableAdaptiveSpringELCompiler() {
+        return enableAdaptiveSpringELCompiler;
+    }
+
+
+    /**
+     * <p>
+     *   Sets whether the <em>adaptive</em> SpringEL compilation mode should be enabled or not.
+     * </p>
+     * <p>
+     *   In this mode, Thymeleaf counts the evaluations of each expression and only compiles it once it has become
+     *   <em>hot</em>. Also, a separate compiled version of each expression is kept for each of the (few) different
+     *   classes of the objects it is evaluated on, so that expressions executed on polymorphic model objects are not
+     *   reverted to interpreted mode when they meet a class different from the one they were compiled for.
+     *   Compilation status of expressions can be monitored by means of
+     *   {@link SPELVariableExpressionEvaluator#getAdaptiveCompilationInfo(org.thymeleaf.IEngineConfiguration)}.
+     * </p>
+     * <p>
+     *   When enabled, this mode takes precedence over the one configured by means of
+     *   {@link #setEnableSpringELCompiler(boolean)}.
+     * </p>
+     * <p>
+     *   This flag is set to {@code false} by default.
+     * </p>
+     *
+     * @param enableAdaptiveSpringELCompiler {@code true} if SpEL expressions should be adaptively compiled if
+     *                                       possible, {@code false} if not.
+     *
+     * @since 3.0.12
+     */
+    public void setEnableAdaptiveSpringELCompiler(final boolean enableAdaptiveSpringELCompiler) {
+        this.enableAdaptiveSpringELCompiler = enableAdaptiveSpringELCompiler;
+    }
+
+
+
+
     /**
      * <p>
      *   Returns whether the {@code <input type="hidden" ...>} marker tags rendered to signal the presence
@@ -281,6 +350,138 @@ public void setRenderHiddenMarkersBeforeCheckboxes(final boolean renderHiddenMar
 
 
 
+    /**
+     * <p>
+     *   Returns the maximum size of the cache of parsed Spring EL expressions.
+     * </p>
+     * <p>
+     *   If greater than zero, parsed Spring EL expressions are kept in a dedicated cache (see
+     *   {@link SPELExpressionCache}), separate from the engine-wide expression cache, so that it can be sized
+     *   independently from it. A value of zero (or less) means no dedicated cache will be used, and Spring EL
+     *   expressions will be cached at the engine-wide expression cache (see
+     *   {@link org.thymeleaf.cache.ICacheManager#getExpressionCache()}), as usual.
+     * </p>
+     * <p>
+     *   A separate dedicated cache is created for each template engine this dialect is used in (see
+     *   {@link org.thymeleaf.spring5.SpringTemplateEngine#getSpringELExpressionCache()}). Note it is not managed by
+     *   the engine's {@link org.thymeleaf.cache.ICacheManager}: it is cleared by
+     *   {@link org.thymeleaf.spring5.SpringTemplateEngine#clearTemplateCache()}, but not by
+     *   {@link org.thymeleaf.cache.ICacheManager#clearAllCaches()}.
+     * </p>
+     * <p>
+     *   Default value is {@link #DEFAULT_SPRING_EL_EXPRESSION_CACHE_MAX_SIZE}.
+     * </p>
+     *
+     * @return the maximum size of the Spring EL expression cache.
+     *
+     * @since 3.0.12
+     */
+    public int getSpringELExpressionCacheMaxSize() {
+        return this.springELExpressionCacheMaxSize;
+    }
+
+
+    /**
+     * <p>
+     *   Sets the maximum size of the cache of parsed Spring EL expressions.
+     * </p>
+     * <p>
+     *   If greater than zero, parsed Spring EL expressions are kept in a dedicated cache (see
+     *   {@link SPELExpressionCache}), separate from the engine-wide expression cache, so that it can be sized
+     *   independently from it. A value of zero (or less) means no dedicated cache will be used, and Spring EL
+     *   expressions will be cached at the engine-wide expression cache (see
+     *   {@link org.thymeleaf.cache.ICacheManager#getExpressionCache()}), as usual.
+     * </p>
+     * <p>
+     *   A separate dedicated cache is created for each template engine this dialect is used in (see
+     *   {@link org.thymeleaf.spring5.SpringTemplateEngine#getSpringELExpressionCache()}). Note it is not managed by
+     *   the engine's {@link org.thymeleaf.cache.ICacheManager}: it is cleared by
+     *   {@link org.thymeleaf.spring5.SpringTemplateEngine#clearTemplateCache()}, but not by
+     *   {@link org.thymeleaf.cache.ICacheManager#clearAllCaches()}.
+     * </p>
+     * <p>
+     *   Default value is {@link #DEFAULT_SPRING_EL_EXPRESSION_CACHE_MAX_SIZE}.
+     * </p>
+     *
+     * @param springELExpressionCacheMaxSize the maximum size of the Spring EL expression cache.
+     *
+     * @since 3.0.12
+     */
+    public void setSpringELExpressionCacheMaxSize(final int springELExpressionCacheMaxSize) {
+        this.springELExpressionCacheMaxSize = springELExpressionCacheMaxSize;
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the <em>pattern spec</em> specified for establishing which Spring EL expressions are
+     *   idempotent during a template execution.
+     * </p>
+     *
+     * @return the pattern spec
+     *
+     * @since 3.0.12
+     */
+    public PatternSpec getIdempotentSpringELExpressionPatternSpec() {
+        return this.idempotentSpringELExpressionPatternSpec;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the patterns specified for establishing which Spring EL expressions are idempotent during
+     *   a template execution.
+     * </p>
+     * <p>
+     *   This is a convenience method equivalent to {@link #getIdempotentSpringELExpressionPatternSpec()}.getPatterns()
+     * </p>
+     *
+     * @return the pattern spec
+     *
+     * @since 3.0.12
+     */
+    public Set<String> getIdempotentSpringELExpressionPatterns() {
+        return this.idempotentSpringELExpressionPatternSpec.getPatterns();
+    }
+
+
+    /**
+     * <p>
+     *   Sets the patterns specifying which Spring EL expressions are <em>idempotent</em> during a template
+     *   execution, i.e. return the same result every time they are evaluated during the same request (e.g.
+     *   {@code #authorization.expression(*)}).
+     * </p>
+     * <p>
+     *   The result of evaluating these expressions will be memoized the first time they are executed, and reused
+     *   for any subsequent evaluations of the same expression during the same template execution. Patterns are
+     *   matched against the text of the expression (without the <tt>${...}</tt>), and can use the {@code *}
+     *   wildcard. Expressions are not memoized when evaluated against a selection target (<tt>*{...}</tt>),
+     *   in contexts with restricted variable access, or when they reference any local variables (e.g. the
+     *   iteration variable of a <tt>th:each</tt>). Inside a <tt>th:object</tt>, results are memoized separately
+     *   for each bound object expression.
+     * </p>
+     * <p>
+     *   Note the result of an expression is considered to depend only on the variables it references and the
+     *   bound object, so patterns should not match expressions whose result depends on anything else that can
+     *   change during the template execution.
+     * </p>
+     * <p>
+     *   This is a convenience method equivalent to {@link #getIdempotentSpringELExpressionPatternSpec()}.setPatterns(Set&lt;String&gt;)
+     * </p>
+     *
+     * @param idempotentSpringELExpressionPatterns the new patterns
+     *
+     * @since 3.0.12
+     */
+    public void setIdempotentSpringELExpressionPatterns(final Set<String> idempotentSpringELExpressionPatterns) {
+        this.idempotentSpringELExpressionPatternSpec.setPatterns(idempotentSpringELExpressionPatterns);
+    }
+
+
+
+
     @Override
     public IStandardVariableExpressionEvaluator getVariableExpressionEvaluator() {
         return SPELVariableExpressionEvaluator.INSTANCE;
@@ -322,6 +523,21 @@ public Map<String, Object> getExecutionAttributes() {
         executionAttributes.putAll(REACTIVE_MODEL_ADDITIONS_EXECUTION_ATTRIBUTES);
         executionAttributes.put(
                 SpringStandardExpressions.ENABLE_SPRING_EL_COMPILER_ATTRIBUTE_NAME, Boolean.valueOf(getEnableSpringELCompiler()));
+        executionAttributes.put(
+                SpringStandardExpressions.ENABLE_ADAPTIVE_SPRING_EL_COMPILER_ATTRIBUTE_NAME,
+                Boolean.valueOf(getEnableAdaptiveSpringELCompiler()));
+        if (this.springELExpressionCacheMaxSize > 0) {
+            // Execution attributes are obtained once per engine configuration, so each template engine using
+            // this dialect gets its own cache (see SpringTemplateEngine#getSpringELExpressionCache())
+            executionAttributes.put(
+                    SpringStandardExpressions.SPRING_EL_EXPRESSION_CACHE_ATTRIBUTE_NAME,
+                    new SPELExpressionCache(this.springELExpressionCacheMaxSize));
+        }
+        if (!this.idempotentSpringELExpressionPatternSpec.isEmpty()) {
+            executionAttributes.put(
+                    SpringStandardExpressions.IDEMPOTENT_SPRING_EL_EXPRESSION_PATTERNS_ATTRIBUTE_NAME,
+                    this.idempotentSpringELExpressionPatternSpec);
+        }
 
         return executionAttributes;
 
@@ -409,6 +625,7 @@ public static Set<IProcessor> createSpringStandardProcessorsSet(
         processors.add(new SpringInputRadioFieldTagProcessor(dialectPrefix));
         processors.add(new SpringInputFileFieldTagProcessor(dialectPrefix));
         processors.add(new SpringSelectFieldTagProcessor(dialectPrefix));
+        processors.add(new SpringSelectOptionsTagProcessor(dialectPrefix));
         processors.add(new SpringOptionInSelectFieldTagProcessor(dialectPrefix));
         processors.add(new SpringOptionFieldTagProcessor(dialectPrefix));
         processors.add(new SpringTextareaFieldTagProcessor(dialectPrefix));
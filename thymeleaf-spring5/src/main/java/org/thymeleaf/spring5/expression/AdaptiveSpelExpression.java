@@ -0,0 +1,337 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.IContext;
+
+/**
+ * <p>
+ *   Adaptive compilation state for a Spring EL expression.
+ * </p>
+ * <p>
+ *   Instead of relying on the Spring EL compiler's global modes, this class counts the evaluations of an expression
+ *   and only compiles it once it is <em>hot</em>. In order to avoid compiled expressions falling back to
+ *   interpretation when they are executed against objects of different classes (which would happen with polymorphic
+ *   model objects), a separate {@link SpelExpression} is kept for each <em>receiver class</em> (up to a maximum),
+ *   in a way similar to a polymorphic inline cache. The receiver is the first variable navigated in the expression
+ *   (for expressions evaluated on the context, e.g. {@code ${order.customer.name}}) or the evaluation root
+ *   (for selection expressions evaluated on a selection target).
+ * </p>
+ * <p>
+ *   In order not to add contention to hot expressions, evaluations are only counted (per variant) until the
+ *   variant has been compiled or compilation has been given up, and once an expression has settled on a single
+ *   receiver class its receiver is not looked up anymore (unless its compiled version fails).
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+final class AdaptiveSpelExpression {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveSpelExpression.class);
+
+    // Number of evaluations (for a receiver class) after which an expression is considered hot, and compiled
+    static final int COMPILATION_THRESHOLD = 100;
+    // Maximum number of receiver classes for which a specific (compilable) variant will be kept
+    static final int MAX_RECEIVER_CLASSES = 4;
+    // Maximum number of times a variant will be compiled again after being deoptimized, or after a failed compilation
+    static final int MAX_COMPILATION_ATTEMPTS = 3;
+
+    // Used as receiver class when the receiver is null
+    private static final Class<?> NULL_RECEIVER_CLASS = Void.class;
+
+    private static final Variant[] NO_VARIANTS = new Variant[0];
+
+
+    private final String expression;
+    private final SpelExpressionParser parser;
+    private final SpelExpression megamorphicExpression;
+    private final String receiverVariableName;
+
+    private final Object variantsLock = new Object();
+    private volatile Variant[] variants = NO_VARIANTS;
+
+    // Only used for monitoring: LongAdders avoid contention between the threads evaluating the expression
+    private final LongAdder evaluationCount = new LongAdder();
+    private final LongAdder megamorphicEvaluationCount = new LongAdder();
+
+
+
+
+    /*
+     * The parser specified here should be configured with SpelCompilerMode.OFF, so that compilation happens only
+     * when requested, and failures of compiled expressions are reported by means of exceptions instead of
+     * silently reverting to interpreted mode.
+     */
+    AdaptiveSpelExpression(final String expression, final SpelExpression spelExpression, final SpelExpressionParser parser) {
+        super();
+        this.expression = expression;
+        this.parser = parser;
+        this.megamorphicExpression = spelExpression;
+        this.receiverVariableName = computeReceiverVariableName(spelExpression);
+    }
+
+
+
+
+    Object getValue(
+            final IContext context, final EvaluationContext evaluationContext, final Object evaluationRoot,
+            final Class<?> expectedResultType) {
+
+        this.evaluationCount.increment();
+
+        final Variant[] currentVariants = this.variants;
+        if (currentVariants.length == 1 && currentVariants[0].settled) {
+            // Monomorphic and no longer adapting, so there is no need to look up the receiver
+            return getSettledValue(currentVariants[0], context, evaluationContext, evaluationRoot, expectedResultType);
+        }
+
+        return getVariantValue(
+                obtainVariant(computeReceiverClass(context, evaluationRoot)),
+                evaluationContext, evaluationRoot, expectedResultType);
+
+    }
+
+
+    private Object getSettledValue(
+            final Variant variant, final IContext context, final EvaluationContext evaluationContext,
+            final Object evaluationRoot, final Class<?> expectedResultType) {
+
+        if (variant.compiled) {
+            try {
+                return execute(variant.expression, evaluationContext, evaluationRoot, expectedResultType);
+            } catch (final SpelEvaluationException e) {
+                if (e.getMessageCode() != SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION) {
+                    throw e;
+                }
+                // The compiled version might have failed because of a receiver of a new class, in which case
+                // a new variant will be created for it instead of deoptimizing the existing one
+                final Class<?> receiverClass = computeReceiverClass(context, evaluationRoot);
+                if (receiverClass != variant.receiverClass) {
+                    return getVariantValue(
+                            obtainVariant(receiverClass), evaluationContext, evaluationRoot, expectedResultType);
+                }
+                variant.deoptimize(this.expression, e);
+            }
+        }
+
+        // Compilation was given up for the only known receiver class (normally because the expression itself
+        // is not compilable), so interpreting will do for any receivers
+        return execute(variant.expression, evaluationContext, evaluationRoot, expectedResultType);
+
+    }
+
+
+    private Object getVariantValue(
+            final Variant variant, final EvaluationContext evaluationContext,
+            final Object evaluationRoot, final Class<?> expectedResultType) {
+
+        if (variant == null) {
+            // Megamorphic: too many receiver classes already, so just interpret
+            this.megamorphicEvaluationCount.increment();
+            return execute(this.megamorphicExpression, evaluationContext, evaluationRoot, expectedResultType);
+        }
+
+        // Note this increment is not atomic: the count is just an approximation, and it stops being updated
+        // once the variant has settled
+        if (!variant.settled && ++variant.evaluationCount >= COMPILATION_THRESHOLD) {
+            variant.compile(this.expression);
+        }
+
+        if (variant.compiled) {
+            try {
+                return execute(variant.expression, evaluationContext, evaluationRoot, expectedResultType);
+            } catch (final SpelEvaluationException e) {
+                if (e.getMessageCode() != SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION) {
+                    throw e;
+                }
+                variant.deoptimize(this.expression, e);
+            }
+        }
+
+        return execute(variant.expression, evaluationContext, evaluationRoot, expectedResultType);
+
+    }
+
+
+    private static Object execute(
+            final SpelExpression expression, final EvaluationContext evaluationContext, final Object evaluationRoot,
+            final Class<?> expectedResultType) {
+        if (expectedResultType == null) {
+            return expression.getValue(evaluationContext, evaluationRoot);
+        }
+        return expression.getValue(evaluationContext, evaluationRoot, expectedResultType);
+    }
+
+
+
+
+    private Class<?> computeReceiverClass(final IContext context, final Object evaluationRoot) {
+        final Object receiver =
+                (this.receiverVariableName != null && evaluationRoot instanceof SPELContextMapWrapper ?
+                        context.getVariable(this.receiverVariableName) : evaluationRoot);
+        return (receiver == null ? NULL_RECEIVER_CLASS : receiver.getClass());
+    }
+
+
+    private Variant obtainVariant(final Class<?> receiverClass) {
+
+        Variant[] currentVariants = this.variants;
+        for (int i = 0; i < currentVariants.length; i++) {
+            if (currentVariants[i].receiverClass == receiverClass) {
+                return currentVariants[i];
+            }
+        }
+        if (currentVariants.length >= MAX_RECEIVER_CLASSES) {
+            return null;
+        }
+
+        synchronized (this.variantsLock) {
+            currentVariants = this.variants;
+            for (int i = 0; i < currentVariants.length; i++) {
+                if (currentVariants[i].receiverClass == receiverClass) {
+                    return currentVariants[i];
+                }
+            }
+            if (currentVariants.length >= MAX_RECEIVER_CLASSES) {
+                return null;
+            }
+            final Variant variant =
+                    new Variant(receiverClass, (SpelExpression) this.parser.parseExpression(this.expression));
+            final Variant[] newVariants = new Variant[currentVariants.length + 1];
+            System.arraycopy(currentVariants, 0, newVariants, 0, currentVariants.length);
+            newVariants[currentVariants.length] = variant;
+            this.variants = newVariants;
+            return variant;
+        }
+
+    }
+
+
+
+
+    SPELExpressionCompilationInfo getCompilationInfo() {
+        final Variant[] currentVariants = this.variants;
+        final List<Class<?>> compiledReceiverClasses = new ArrayList<Class<?>>(currentVariants.length);
+        final List<Class<?>> interpretedReceiverClasses = new ArrayList<Class<?>>(currentVariants.length);
+        long deoptimizationCount = 0L;
+        for (final Variant variant : currentVariants) {
+            if (variant.compiled) {
+                compiledReceiverClasses.add(variant.receiverClass);
+            } else {
+                interpretedReceiverClasses.add(variant.receiverClass);
+            }
+            deoptimizationCount += variant.deoptimizationCount.get();
+        }
+        return new SPELExpressionCompilationInfo(
+                this.expression, this.evaluationCount.sum(), this.megamorphicEvaluationCount.sum(),
+                deoptimizationCount, compiledReceiverClasses, interpretedReceiverClasses);
+    }
+
+
+
+
+    private static String computeReceiverVariableName(final SpelExpression spelExpression) {
+        // We are only interested in expressions navigating from a context variable, like "order.customer.name"
+        final SpelNode ast = spelExpression.getAST();
+        if (ast instanceof CompoundExpression && ast.getChildCount() > 1) {
+            final SpelNode first = ast.getChild(0);
+            if (first instanceof PropertyOrFieldReference) {
+                return ((PropertyOrFieldReference) first).getName();
+            }
+        }
+        return null;
+    }
+
+
+
+
+    private static final class Variant {
+
+        final Class<?> receiverClass;
+        final SpelExpression expression;
+        final AtomicInteger deoptimizationCount = new AtomicInteger(0);
+        int evaluationCount = 0; // evaluations since the last compilation attempt, only counted until settled
+        int compilationAttempts = 0; // guarded by this
+        volatile boolean compiled = false;
+        volatile boolean settled = false; // compiled, or no more compilation attempts will be made
+
+        Variant(final Class<?> receiverClass, final SpelExpression expression) {
+            super();
+            this.receiverClass = receiverClass;
+            this.expression = expression;
+        }
+
+        synchronized void compile(final String expressionStr) {
+            if (this.settled) {
+                // Another thread already compiled this variant (or gave up)
+                return;
+            }
+            this.evaluationCount = 0;
+            this.compilationAttempts++;
+            this.compiled = this.expression.compileExpression();
+            this.settled = (this.compiled || this.compilationAttempts >= MAX_COMPILATION_ATTEMPTS);
+            if (logger.isTraceEnabled()) {
+                logger.trace("[THYMELEAF][{}] SpringEL expression \"{}\" {} for receiver class {}",
+                        new Object[] { TemplateEngine.threadIndex(), expressionStr,
+                                (this.compiled? "compiled" : "could not be compiled"), this.receiverClass.getName() });
+            }
+        }
+
+        synchronized void deoptimize(final String expressionStr, final SpelEvaluationException e) {
+            if (!this.compiled) {
+                // Another thread already deoptimized this variant
+                return;
+            }
+            this.expression.revertToInterpreted();
+            this.compiled = false;
+            this.evaluationCount = 0;
+            this.settled = (this.compilationAttempts >= MAX_COMPILATION_ATTEMPTS);
+            this.deoptimizationCount.incrementAndGet();
+            if (logger.isDebugEnabled()) {
+                logger.debug("[THYMELEAF][{}] Compiled SpringEL expression \"{}\" failed for receiver class {}, " +
+                        "reverting to interpreted mode: {}",
+                        new Object[] { TemplateEngine.threadIndex(), expressionStr, this.receiverClass.getName(),
+                                e.getMessage() });
+            }
+        }
+
+    }
+
+
+}
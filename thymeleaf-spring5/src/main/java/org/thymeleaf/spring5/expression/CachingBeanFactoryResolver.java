@@ -0,0 +1,126 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.expression;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.BeansException;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.expression.BeanFactoryResolver;
+import org.springframework.expression.AccessException;
+import org.springframework.expression.BeanResolver;
+import org.springframework.expression.EvaluationContext;
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   {@link BeanResolver} implementation for bean references in Spring EL expressions (e.g.
+ *   {@code ${@someBean.method()}}) that caches references to <em>singleton</em> beans, so that a full
+ *   {@code getBean(name)} lookup (alias resolution, singleton registry checks...) is not needed for each
+ *   evaluation.
+ * </p>
+ * <p>
+ *   Beans that are not singletons (prototype or scoped beans) are resolved against the
+ *   {@link ApplicationContext} every time, exactly as {@link BeanFactoryResolver} does. All cached references
+ *   are discarded when the application context is refreshed (detected by means of its startup date), and no
+ *   caching is performed while a configurable application context is not active.
+ * </p>
+ * <p>
+ *   Objects of this class are thread-safe.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+final class CachingBeanFactoryResolver implements BeanResolver {
+
+    // Marker for beans that are known not to be singletons, so that we do not need to ask again
+    private static final Object NOT_SINGLETON = new Object();
+
+    private final ApplicationContext applicationContext;
+    private volatile BeanCache beanCache;
+
+
+
+    CachingBeanFactoryResolver(final ApplicationContext applicationContext) {
+        super();
+        Validate.notNull(applicationContext, "Application Context cannot be null");
+        this.applicationContext = applicationContext;
+        this.beanCache = new BeanCache(applicationContext.getStartupDate());
+    }
+
+
+
+    public Object resolve(final EvaluationContext context, final String beanName) throws AccessException {
+
+        try {
+
+            if (this.applicationContext instanceof ConfigurableApplicationContext &&
+                    !((ConfigurableApplicationContext) this.applicationContext).isActive()) {
+                // Context is being refreshed or has been closed: no caching at all
+                return this.applicationContext.getBean(beanName);
+            }
+
+            BeanCache cache = this.beanCache;
+            final long startupDate = this.applicationContext.getStartupDate();
+            if (cache.startupDate != startupDate) {
+                // Context has been refreshed since our beans were cached
+                cache = new BeanCache(startupDate);
+                this.beanCache = cache;
+            }
+
+            final Object cached = cache.beans.get(beanName);
+            if (cached == NOT_SINGLETON) {
+                return this.applicationContext.getBean(beanName);
+            }
+            if (cached != null) {
+                return cached;
+            }
+
+            final Object bean = this.applicationContext.getBean(beanName);
+            cache.beans.put(beanName, (this.applicationContext.isSingleton(beanName)? bean : NOT_SINGLETON));
+            return bean;
+
+        } catch (final BeansException ex) {
+            throw new AccessException("Could not resolve bean reference against BeanFactory", ex);
+        }
+
+    }
+
+
+
+
+    private static final class BeanCache {
+
+        final long startupDate;
+        final ConcurrentHashMap<String,Object> beans = new ConcurrentHashMap<String, Object>(16);
+
+        BeanCache(final long startupDate) {
+            super();
+            this.startupDate = startupDate;
+        }
+
+    }
+
+
+}
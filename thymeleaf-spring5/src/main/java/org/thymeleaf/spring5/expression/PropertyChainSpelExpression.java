@@ -0,0 +1,363 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.expression;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.expression.MapAccessor;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.Indexer;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.StringLiteral;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
+import org.springframework.util.StringUtils;
+import org.thymeleaf.context.IContext;
+
+/**
+ * <p>
+ *   Fast, reflection-free evaluation path for Spring EL expressions that are simple chains of property
+ *   navigations and literal map-key accesses, like {@code ${order.customer.name}}, {@code *{total}} or
+ *   {@code ${labels['title']}}.
+ * </p>
+ * <p>
+ *   Properties are read by means of {@link MethodHandle}s obtained once per class and property name. Whenever
+ *   the fast path cannot guarantee the same result as the Spring EL interpreter (e.g. a {@code null} value in
+ *   the middle of the chain, a non-public class, a non-standard set of property accessors at the evaluation
+ *   context, etc.) it returns {@link #NOT_APPLICABLE} so that the expression is evaluated by Spring EL as usual.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+final class PropertyChainSpelExpression {
+
+    static final Object NOT_APPLICABLE = new Object();
+
+    private static final PropertyReader UNSUPPORTED = new PropertyReader(null);
+
+    // Property accessor configurations of evaluation contexts, as far as the fast path is concerned
+    private static final int NON_STANDARD_ACCESSORS = 0;
+    private static final int STANDARD_ACCESSORS = 1;
+    private static final int STANDARD_ACCESSORS_WITH_MAP_ACCESSOR = 2;
+
+    private static final MethodType READER_METHOD_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<ConcurrentHashMap<String,PropertyReader>> READERS =
+            new ClassValue<ConcurrentHashMap<String,PropertyReader>>() {
+                @Override
+                protected ConcurrentHashMap<String,PropertyReader> computeValue(final Class<?> type) {
+                    return new ConcurrentHashMap<String,PropertyReader>(4, 0.75f, 2);
+                }
+            };
+
+
+    private final Step[] steps;
+
+
+
+
+    /*
+     * Returns a property chain expression if the specified expression can be evaluated through the fast path,
+     * or null if it cannot.
+     */
+    static PropertyChainSpelExpression classify(final SpelExpression spelExpression) {
+
+        final SpelNode ast = spelExpression.getAST();
+
+        final List<Step> steps = new ArrayList<Step>(4);
+        if (ast instanceof CompoundExpression) {
+            for (int i = 0; i < ast.getChildCount(); i++) {
+                final Step step = computeStep(ast.getChild(i));
+                if (step == null) {
+                    return null;
+                }
+                steps.add(step);
+            }
+        } else {
+            final Step step = computeStep(ast);
+            if (step == null) {
+                return null;
+            }
+            steps.add(step);
+        }
+
+        // Map-key steps are not allowed as the first step, as they would be applied on the evaluation root
+        if (steps.get(0).mapKey) {
+            return null;
+        }
+
+        return new PropertyChainSpelExpression(steps.toArray(new Step[steps.size()]));
+
+    }
+
+
+    private static Step computeStep(final SpelNode node) {
+        if (node instanceof PropertyOrFieldReference) {
+            final PropertyOrFieldReference reference = (PropertyOrFieldReference) node;
+            return new Step(reference.getName(), false, reference.isNullSafe());
+        }
+        if (node instanceof Indexer && node.getChildCount() == 1 && node.getChild(0) instanceof StringLiteral) {
+            final Object key = ((StringLiteral) node.getChild(0)).getLiteralValue().getValue();
+            return (key instanceof String ? new Step((String) key, true, false) : null);
+        }
+        return null;
+    }
+
+
+
+
+    private PropertyChainSpelExpression(final Step[] steps) {
+        super();
+        this.steps = steps;
+    }
+
+
+
+
+    Object getValue(final EvaluationContext evaluationContext, final Object evaluationRoot) {
+
+        if (evaluationRoot == null) {
+            return NOT_APPLICABLE;
+        }
+        final int propertyAccessors = classifyPropertyAccessors(evaluationContext);
+        if (propertyAccessors == NON_STANDARD_ACCESSORS) {
+            return NOT_APPLICABLE;
+        }
+
+        Object target = evaluationRoot;
+        for (int i = 0; i < this.steps.length; i++) {
+
+            final Step step = this.steps[i];
+
+            if (target == null) {
+                if (step.nullSafe) {
+                    return null;
+                }
+                // Let Spring EL raise the adequate exception
+                return NOT_APPLICABLE;
+            }
+
+            if (target instanceof Map) {
+                if (propertyAccessors != STANDARD_ACCESSORS_WITH_MAP_ACCESSOR) {
+                    // Without a MapAccessor, Spring EL would read map properties reflectively
+                    return NOT_APPLICABLE;
+                }
+                final Map<?,?> map = (Map<?,?>) target;
+                // Same as MapAccessor: only keys contained in the map can be read this way. Note that in the case
+                // of the SPELContextMapWrapper this call also checks whether access to the variable is restricted.
+                if (!map.containsKey(step.name)) {
+                    return NOT_APPLICABLE;
+                }
+                target = map.get(step.name);
+                continue;
+            }
+
+            if (step.mapKey) {
+                return NOT_APPLICABLE;
+            }
+
+            final PropertyReader reader = obtainReader(target.getClass(), step.name);
+            if (reader == UNSUPPORTED) {
+                return NOT_APPLICABLE;
+            }
+            target = reader.read(target);
+
+        }
+
+        return target;
+
+    }
+
+
+    /*
+     * The fast path is only equivalent to Spring EL evaluation if the property accessors being used are the
+     * ones set by Thymeleaf's own evaluation contexts. Besides, maps can only be read as such if a MapAccessor
+     * is among them.
+     */
+    private static int classifyPropertyAccessors(final EvaluationContext evaluationContext) {
+        boolean mapAccessor = false;
+        final List<PropertyAccessor> propertyAccessors = evaluationContext.getPropertyAccessors();
+        for (int i = 0, n = propertyAccessors.size(); i < n; i++) {
+            final Class<?> propertyAccessorClass = propertyAccessors.get(i).getClass();
+            if (propertyAccessorClass == MapAccessor.class) {
+                mapAccessor = true;
+            } else if (propertyAccessorClass != ReflectivePropertyAccessor.class &&
+                    propertyAccessorClass != SPELContextPropertyAccessor.class) {
+                return NON_STANDARD_ACCESSORS;
+            }
+        }
+        return (mapAccessor? STANDARD_ACCESSORS_WITH_MAP_ACCESSOR : STANDARD_ACCESSORS);
+    }
+
+
+
+
+    private static PropertyReader obtainReader(final Class<?> type, final String propertyName) {
+        final ConcurrentHashMap<String,PropertyReader> readersForType = READERS.get(type);
+        PropertyReader reader = readersForType.get(propertyName);
+        if (reader == null) {
+            reader = computeReader(type, propertyName);
+            readersForType.putIfAbsent(propertyName, reader);
+        }
+        return reader;
+    }
+
+
+    private static PropertyReader computeReader(final Class<?> type, final String propertyName) {
+
+        // Arrays, Class objects (static property access) and Thymeleaf contexts have their own semantics in Spring EL
+        if (type.isArray() || Class.class == type || IContext.class.isAssignableFrom(type)) {
+            return UNSUPPORTED;
+        }
+
+        try {
+
+            // Same resolution order as ReflectivePropertyAccessor: getters first ("get", then "is"), then fields
+            final Method getter = findGetter(type, propertyName);
+            if (getter != null) {
+                return new PropertyReader(MethodHandles.publicLookup().unreflect(getter).asType(READER_METHOD_TYPE));
+            }
+
+            final Field field = findField(type, propertyName);
+            if (field != null) {
+                return new PropertyReader(MethodHandles.publicLookup().unreflectGetter(field).asType(READER_METHOD_TYPE));
+            }
+
+        } catch (final IllegalAccessException e) {
+            // Not accessible from here (e.g. public method declared in a non-public class): Spring EL will take care
+        }
+
+        return UNSUPPORTED;
+
+    }
+
+
+    private static Method findGetter(final Class<?> type, final String propertyName) {
+        final String[] suffixes = getPropertyMethodSuffixes(propertyName);
+        for (final String suffix : suffixes) {
+            final Method getMethod = findPublicMethod(type, "get" + suffix);
+            if (getMethod != null && getMethod.getReturnType() != void.class) {
+                return getMethod;
+            }
+        }
+        for (final String suffix : suffixes) {
+            final Method isMethod = findPublicMethod(type, "is" + suffix);
+            if (isMethod != null &&
+                    (isMethod.getReturnType() == boolean.class || isMethod.getReturnType() == Boolean.class)) {
+                return isMethod;
+            }
+        }
+        return null;
+    }
+
+
+    /*
+     * Same as ReflectivePropertyAccessor#getPropertyMethodSuffixes(String): names with an uppercase second
+     * character (e.g. "xName") are first tried as is ("getxName"), and only then capitalized ("getXName").
+     */
+    private static String[] getPropertyMethodSuffixes(final String propertyName) {
+        final String suffix =
+                (propertyName.length() > 1 && Character.isUpperCase(propertyName.charAt(1))?
+                        propertyName : StringUtils.capitalize(propertyName));
+        if (suffix.length() > 0 && Character.isUpperCase(suffix.charAt(0))) {
+            return new String[] { suffix };
+        }
+        return new String[] { suffix, StringUtils.capitalize(suffix) };
+    }
+
+
+    private static Method findPublicMethod(final Class<?> type, final String name) {
+        try {
+            final Method method = type.getMethod(name);
+            return (Modifier.isStatic(method.getModifiers()) || method.isBridge() ? null : method);
+        } catch (final NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+
+    private static Field findField(final Class<?> type, final String name) {
+        try {
+            final Field field = type.getField(name);
+            return (Modifier.isStatic(field.getModifiers()) ? null : field);
+        } catch (final NoSuchFieldException e) {
+            return null;
+        }
+    }
+
+
+
+
+    private static final class Step {
+
+        final String name;
+        final boolean mapKey;
+        final boolean nullSafe;
+
+        Step(final String name, final boolean mapKey, final boolean nullSafe) {
+            super();
+            this.name = name;
+            this.mapKey = mapKey;
+            this.nullSafe = nullSafe;
+        }
+
+    }
+
+
+    private static final class PropertyReader {
+
+        private final MethodHandle handle;
+
+        PropertyReader(final MethodHandle handle) {
+            super();
+            this.handle = handle;
+        }
+
+        Object read(final Object target) {
+            try {
+                return this.handle.invokeExact(target);
+            } catch (final RuntimeException e) {
+                throw e;
+            } catch (final Error e) {
+                throw e;
+            } catch (final Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+    }
+
+
+}
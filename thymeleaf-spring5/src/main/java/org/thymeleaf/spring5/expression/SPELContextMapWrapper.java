@@ -25,6 +25,7 @@
 
 import org.thymeleaf.context.IContext;
 import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.spring5.context.IVersionedVariablesContext;
 
 /**
  * <p>
@@ -43,15 +44,38 @@ public final class SPELContextMapWrapper implements Map {
     private static final String REQUEST_PARAMETERS_RESTRICTED_VARIABLE_NAME = "param";
 
 
+    // Number of slots in the variable cache: must be a power of two
+    private static final int VARIABLE_SLOT_COUNT = 32;
+
+
     private final IContext context;
     private final IThymeleafEvaluationContext evaluationContext;
 
+    // Small cache of resolved variables, only used when the context is able to tell us when its variables change.
+    // Slots are indexed by (cached) String hash, so a repeated lookup of the same variable (e.g. the iterated
+    // variable inside a th:each) is just an array access instead of a search through every context level.
+    private final IVersionedVariablesContext versionedContext;
+    private String[] slotNames = null;
+    private Object[] slotValues = null;
+    private int[] slotVersions = null;
+
 
 
     SPELContextMapWrapper(final IContext context, final IThymeleafEvaluationContext evaluationContext) {
         super();
         this.context = context;
         this.evaluationContext = evaluationContext;
+        this.versionedContext =
+                (context instanceof IVersionedVariablesContext? (IVersionedVariablesContext) context : null);
+    }
+
+
+    /*
+     * Used by the evaluation contexts in order to determine whether an instance of this class can be reused
+     * as evaluation root for an expression being executed on a specific context.
+     */
+    boolean isWrapping(final IContext context, final IThymeleafEvaluationContext evaluationContext) {
+        return this.context == context && this.evaluationContext == evaluationContext;
     }
 
 
@@ -126,7 +150,36 @@ public Object get(final Object key) {
             }
         }
 
-        return this.context.getVariable(key == null? null : key.toString());
+        final String name = (key == null? null : key.toString());
+        if (this.versionedContext != null && name != null) {
+            return getVersionedVariable(name);
+        }
+        return this.context.getVariable(name);
+
+    }
+
+
+    private Object getVersionedVariable(final String name) {
+
+        if (this.slotNames == null) {
+            this.slotNames = new String[VARIABLE_SLOT_COUNT];
+            this.slotValues = new Object[VARIABLE_SLOT_COUNT];
+            this.slotVersions = new int[VARIABLE_SLOT_COUNT];
+        }
+
+        final int version = this.versionedContext.getVariablesVersion();
+        final int slot = name.hashCode() & (VARIABLE_SLOT_COUNT - 1);
+
+        final String slotName = this.slotNames[slot];
+        if (this.slotVersions[slot] == version && (slotName == name || name.equals(slotName))) {
+            return this.slotValues[slot];
+        }
+
+        final Object value = this.context.getVariable(name);
+        this.slotNames[slot] = name;
+        this.slotValues[slot] = value;
+        this.slotVersions[slot] = version;
+        return value;
 
     }
 
@@ -28,6 +28,7 @@
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.IContext;
 import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.spring5.context.IVersionedVariablesContext;
 
 /**
  * <p>
@@ -113,6 +114,14 @@ public TypedValue read(final EvaluationContext evaluationContext, final Object t
             }
 
             final IContext context = (IContext) target;
+            if (context instanceof IVersionedVariablesContext &&
+                    (evaluationContext instanceof ThymeleafEvaluationContextWrapper ||
+                            evaluationContext instanceof ThymeleafEvaluationContext)) {
+                // The root wrapper kept by our evaluation contexts will be able to cache resolved variables
+                return new TypedValue(
+                        SPELVariableExpressionEvaluator.obtainContextMapWrapper(
+                                context, (IThymeleafEvaluationContext) evaluationContext).get(name));
+            }
             return new TypedValue(context.getVariable(name));
 
         } catch (final ClassCastException e) {
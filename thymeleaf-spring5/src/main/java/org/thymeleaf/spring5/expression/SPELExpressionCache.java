@@ -0,0 +1,276 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.expression;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   Cache for parsed Spring EL expressions, used by {@link SPELVariableExpressionEvaluator}.
+ * </p>
+ * <p>
+ *   This cache is separate from the engine-wide expression cache (see
+ *   {@link org.thymeleaf.cache.ICacheManager#getExpressionCache()}) so that it can be sized independently. It is
+ *   directly keyed by the expression {@code String} (so no key objects need to be created for lookups) and uses a
+ *   frequency-aware eviction policy: when the maximum size is exceeded, the least frequently used entries are
+ *   evicted (except the entry that has just been added), and the frequencies of the remaining ones are aged so
+ *   that entries that are not used anymore can eventually be evicted too.
+ * </p>
+ * <p>
+ *   Instances of this class are created and configured by means of
+ *   {@link org.thymeleaf.spring5.dialect.SpringStandardDialect#setSpringELExpressionCacheMaxSize(int)}.
+ * </p>
+ * <p>
+ *   Objects of this class are thread-safe.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+public final class SPELExpressionCache {
+
+    // Percentage of entries (over max size) that will be evicted in each eviction pass
+    private static final int EVICTION_PERCENTAGE = 10;
+
+    private static final Comparator<EvictionCandidate> FREQUENCY_COMPARATOR =
+            new Comparator<EvictionCandidate>() {
+                public int compare(final EvictionCandidate o1, final EvictionCandidate o2) {
+                    return Integer.compare(o1.frequency, o2.frequency);
+                }
+            };
+
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String,Entry> entries;
+    private final Object evictionLock = new Object();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+
+
+
+    public SPELExpressionCache(final int maxSize) {
+        super();
+        Validate.isTrue(maxSize > 0, "Maximum size of the Spring EL expression cache must be greater than zero");
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<String,Entry>(Math.min(maxSize, 1024));
+    }
+
+
+
+
+    Object get(final String expression) {
+        final Entry entry = this.entries.get(expression);
+        if (entry == null) {
+            this.missCount.increment();
+            return null;
+        }
+        // Note this increment is not atomic: frequencies are just an approximation, and we don't want to add any
+        // contention to cache hits.
+        entry.frequency++;
+        this.hitCount.increment();
+        return entry.value;
+    }
+
+
+    void put(final String expression, final Object value) {
+        final Entry entry = new Entry(value);
+        if (this.entries.putIfAbsent(expression, entry) == null && this.entries.size() > this.maxSize) {
+            evict(entry);
+        }
+    }
+
+
+    List<Object> values() {
+        final List<Object> values = new ArrayList<Object>(this.entries.size());
+        for (final Entry entry : this.entries.values()) {
+            values.add(entry.value);
+        }
+        return values;
+    }
+
+
+    private void evict(final Entry newEntry) {
+
+        synchronized (this.evictionLock) {
+
+            final int size = this.entries.size();
+            if (size <= this.maxSize) {
+                // Another thread already performed the eviction
+                return;
+            }
+
+            // Frequencies are snapshotted before sorting, as they can be modified concurrently by cache hits. The
+            // entry that triggered this eviction is left out, as it has not had any chance to be used yet and would
+            // otherwise always be among the first ones to be evicted.
+            final List<EvictionCandidate> candidates = new ArrayList<EvictionCandidate>(size + 16);
+            for (final Map.Entry<String,Entry> mapEntry : this.entries.entrySet()) {
+                if (mapEntry.getValue() != newEntry) {
+                    candidates.add(new EvictionCandidate(mapEntry.getKey(), mapEntry.getValue()));
+                }
+            }
+            Collections.sort(candidates, FREQUENCY_COMPARATOR);
+
+            final int toBeEvicted = (size - this.maxSize) + Math.max(1, (this.maxSize * EVICTION_PERCENTAGE) / 100);
+            int evicted = 0;
+            for (final EvictionCandidate candidate : candidates) {
+                if (evicted < toBeEvicted) {
+                    if (this.entries.remove(candidate.key, candidate.entry)) {
+                        evicted++;
+                    }
+                } else {
+                    // Age the surviving entries
+                    candidate.entry.frequency = candidate.frequency >>> 1;
+                }
+            }
+
+            this.evictionCount.add(evicted);
+
+        }
+
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the maximum size of this cache.
+     * </p>
+     *
+     * @return the maximum size.
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the current number of entries in this cache.
+     * </p>
+     *
+     * @return the current size.
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of lookups that found the expression in the cache.
+     * </p>
+     *
+     * @return the hit count.
+     */
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of lookups that did not find the expression in the cache.
+     * </p>
+     *
+     * @return the miss count.
+     */
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of entries that have been evicted from the cache because of its maximum size being
+     *   exceeded.
+     * </p>
+     *
+     * @return the eviction count.
+     */
+    public long getEvictionCount() {
+        return this.evictionCount.sum();
+    }
+
+
+    /**
+     * <p>
+     *   Removes all entries from this cache. Counters are not reset.
+     * </p>
+     */
+    public void clear() {
+        this.entries.clear();
+    }
+
+
+
+
+    @Override
+    public String toString() {
+        return "SPELExpressionCache{size=" + size() + ", maxSize=" + this.maxSize +
+                ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "}";
+    }
+
+
+
+
+    private static final class Entry {
+
+        final Object value;
+        int frequency = 0;
+
+        Entry(final Object value) {
+            super();
+            this.value = value;
+        }
+
+    }
+
+
+    private static final class EvictionCandidate {
+
+        final String key;
+        final Entry entry;
+        final int frequency;
+
+        EvictionCandidate(final String key, final Entry entry) {
+            super();
+            this.key = key;
+            this.entry = entry;
+            this.frequency = entry.frequency;
+        }
+
+    }
+
+
+}
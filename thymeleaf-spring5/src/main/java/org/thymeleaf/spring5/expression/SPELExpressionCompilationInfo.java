@@ -0,0 +1,167 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.expression;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ *   Snapshot of the adaptive compilation status of a Spring EL expression, as returned by
+ *   {@link SPELVariableExpressionEvaluator#getAdaptiveCompilationInfo(org.thymeleaf.IEngineConfiguration)}.
+ * </p>
+ * <p>
+ *   Note this information is only available when the <em>adaptive</em> Spring EL compilation mode is enabled
+ *   (see {@link org.thymeleaf.spring5.dialect.SpringStandardDialect#setEnableAdaptiveSpringELCompiler(boolean)}).
+ * </p>
+ * <p>
+ *   Objects of this class are immutable.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+public final class SPELExpressionCompilationInfo {
+
+    private final String expression;
+    private final long evaluationCount;
+    private final long megamorphicEvaluationCount;
+    private final long deoptimizationCount;
+    private final List<Class<?>> compiledReceiverClasses;
+    private final List<Class<?>> interpretedReceiverClasses;
+
+
+
+    SPELExpressionCompilationInfo(
+            final String expression, final long evaluationCount, final long megamorphicEvaluationCount,
+            final long deoptimizationCount,
+            final List<Class<?>> compiledReceiverClasses, final List<Class<?>> interpretedReceiverClasses) {
+        super();
+        this.expression = expression;
+        this.evaluationCount = evaluationCount;
+        this.megamorphicEvaluationCount = megamorphicEvaluationCount;
+        this.deoptimizationCount = deoptimizationCount;
+        this.compiledReceiverClasses = Collections.unmodifiableList(compiledReceiverClasses);
+        this.interpretedReceiverClasses = Collections.unmodifiableList(interpretedReceiverClasses);
+    }
+
+
+    /**
+     * <p>
+     *   Returns the Spring EL expression this information refers to.
+     * </p>
+     *
+     * @return the expression.
+     */
+    public String getExpression() {
+        return this.expression;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the total number of times the expression has been evaluated.
+     * </p>
+     *
+     * @return the evaluation count.
+     */
+    public long getEvaluationCount() {
+        return this.evaluationCount;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of evaluations that have been performed in interpreted mode because the
+     *   maximum number of receiver classes for this expression had already been reached.
+     * </p>
+     *
+     * @return the megamorphic evaluation count.
+     */
+    public long getMegamorphicEvaluationCount() {
+        return this.megamorphicEvaluationCount;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the number of times a compiled version of this expression has failed and had to be
+     *   reverted to interpreted mode.
+     * </p>
+     *
+     * @return the deoptimization count.
+     */
+    public long getDeoptimizationCount() {
+        return this.deoptimizationCount;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the receiver classes for which this expression is currently being executed in compiled mode.
+     * </p>
+     *
+     * @return the list of receiver classes (never null).
+     */
+    public List<Class<?>> getCompiledReceiverClasses() {
+        return this.compiledReceiverClasses;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the receiver classes for which this expression is currently being executed in interpreted mode,
+     *   be it because it is not hot enough yet, because it cannot be compiled or because it was deoptimized.
+     * </p>
+     *
+     * @return the list of receiver classes (never null).
+     */
+    public List<Class<?>> getInterpretedReceiverClasses() {
+        return this.interpretedReceiverClasses;
+    }
+
+
+    /**
+     * <p>
+     *   Returns whether this expression is currently being executed in compiled mode for at least
+     *   one receiver class.
+     * </p>
+     *
+     * @return {@code true} if the expression is compiled for any receiver class, {@code false} if not.
+     */
+    public boolean isCompiled() {
+        return !this.compiledReceiverClasses.isEmpty();
+    }
+
+
+
+
+    @Override
+    public String toString() {
+        return "{" + this.expression + "}: evaluations=" + this.evaluationCount +
+                ", megamorphic=" + this.megamorphicEvaluationCount +
+                ", deoptimizations=" + this.deoptimizationCount +
+                ", compiled=" + this.compiledReceiverClasses +
+                ", interpreted=" + this.interpretedReceiverClasses;
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.expression;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.unbescape.html.HtmlEscape;
+
+/**
+ * <p>
+ *   Utility class for extracting the bodies of all the variable (<tt>${...}</tt>) and selection variable
+ *   (<tt>*{...}</tt>) expressions contained in the text of a template.
+ * </p>
+ * <p>
+ *   Extraction is purely lexical (templates are not parsed), so the returned bodies should be considered
+ *   <em>candidate</em> Spring EL expressions, some of which might not be parseable (e.g. those containing
+ *   preprocessing fragments or not really being Thymeleaf expressions). Nested expressions (e.g. those inside
+ *   <tt>__...__</tt> preprocessing blocks) are extracted too. Double-brace expressions (<tt>${{...}}</tt>)
+ *   return their inner body, and HTML entity references are unescaped, so that the extracted bodies match the
+ *   ones that will be actually evaluated.
+ * </p>
+ * <p>
+ *   This is mainly used for pre-warming the Spring EL expression cache
+ *   (see {@link org.thymeleaf.spring5.SpringTemplateEngine#prewarmSpringELExpressions(String...)}).
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+public final class SPELExpressionExtractor {
+
+    // Bodies longer than this will not be considered expressions
+    private static final int MAX_EXPRESSION_LENGTH = 4096;
+
+
+    /**
+     * <p>
+     *   Extracts the bodies of all the <tt>${...}</tt> and <tt>*{...}</tt> expressions in the specified text.
+     * </p>
+     *
+     * @param text the text (normally, the contents of a template) to be scanned.
+     * @return the set of (distinct) expression bodies, in order of appearance. Never null.
+     */
+    public static Set<String> extractExpressions(final CharSequence text) {
+
+        final Set<String> expressions = new LinkedHashSet<String>();
+        if (text == null) {
+            return expressions;
+        }
+
+        final int textLen = text.length();
+        for (int i = 0; i < textLen - 1; i++) {
+
+            final char c = text.charAt(i);
+            if ((c != '$' && c != '*') || text.charAt(i + 1) != '{') {
+                continue;
+            }
+
+            int bodyStart = i + 2;
+            if (bodyStart < textLen && text.charAt(bodyStart) == '{') {
+                // Double-brace expression (${{...}}): its body is the inner one
+                bodyStart++;
+            }
+
+            final int bodyEnd = findClosingBrace(text, bodyStart);
+            if (bodyEnd < 0) {
+                continue;
+            }
+
+            // Note we do not skip the body here: scanning continues right after the opening brace, so that nested
+            // expressions (e.g. in preprocessing blocks) are also found.
+            final String body = text.subSequence(bodyStart, bodyEnd).toString().trim();
+            if (body.length() > 0) {
+                expressions.add(body.indexOf('&') >= 0 ? HtmlEscape.unescapeHtml(body) : body);
+            }
+
+        }
+
+        return expressions;
+
+    }
+
+
+
+
+    private static int findClosingBrace(final CharSequence text, final int from) {
+
+        // Limiting the scanned length avoids quadratic behaviour on texts with many unclosed '${' sequences
+        final int maxPos = Math.min(text.length(), from + MAX_EXPRESSION_LENGTH);
+        boolean inLiteral = false;
+        int depth = 0;
+
+        for (int i = from; i < maxPos; i++) {
+            final char c = text.charAt(i);
+            if (inLiteral) {
+                if (c == '\'') {
+                    inLiteral = false; // Escaped quotes ('') will simply close and reopen the literal
+                }
+            } else if (c == '\'') {
+                inLiteral = true;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                if (depth == 0) {
+                    return i;
+                }
+                depth--;
+            }
+        }
+
+        return -1;
+
+    }
+
+
+
+
+    private SPELExpressionExtractor() {
+        super();
+    }
+
+
+}
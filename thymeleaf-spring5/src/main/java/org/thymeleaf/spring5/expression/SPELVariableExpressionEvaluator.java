@@ -19,11 +19,20 @@
  */
 package org.thymeleaf.spring5.expression;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelNode;
 import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.VariableReference;
 import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
@@ -32,12 +41,14 @@
 import org.thymeleaf.cache.ExpressionCacheKey;
 import org.thymeleaf.cache.ICache;
 import org.thymeleaf.cache.ICacheManager;
+import org.thymeleaf.context.IContext;
 import org.thymeleaf.context.IEngineContext;
 import org.thymeleaf.context.IExpressionContext;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.exceptions.TemplateProcessingException;
 import org.thymeleaf.expression.IExpressionObjects;
 import org.thymeleaf.spring5.context.IThymeleafBindStatus;
+import org.thymeleaf.spring5.naming.SpringContextVariableNames;
 import org.thymeleaf.spring5.util.FieldUtils;
 import org.thymeleaf.spring5.util.SpringValueFormatter;
 import org.thymeleaf.spring5.util.SpringVersionUtils;
@@ -78,18 +89,24 @@
     
     private static final Logger logger = LoggerFactory.getLogger(SPELVariableExpressionEvaluator.class);
 
+    private static final Object NOT_MEMOIZED = new Object();
+
     private static final SpelExpressionParser PARSER_WITHOUT_COMPILED_SPEL = new SpelExpressionParser();
     private static final SpelExpressionParser PARSER_WITH_COMPILED_SPEL;
+    private static final SpelExpressionParser PARSER_WITH_ADAPTIVE_COMPILED_SPEL;
 
 
     /*
      *  INITIALIZATION OF THE Spring EL parser.
      *  Two parsers will be always initialized: one with expression compilation enabled (if the Spring version allows)
      *  and another one without. Then during template execution we will check which one should be used.
+     *  A third one will be initialized for adaptive compilation, in which compilation is controlled by Thymeleaf
+     *  itself (see AdaptiveSpelExpression).
      */
     static {
 
         SpelExpressionParser spelCompilerExpressionParser = null;
+        SpelExpressionParser spelAdaptiveCompilerExpressionParser = null;
         if (SpringVersionUtils.isSpring41AtLeast()) {
             try {
                 // Enable the SpEL compiler, in MIXED mode (not IMMEDIATE) in order to avoid ClassCastExceptions
@@ -99,6 +116,13 @@
                                 SpelCompilerMode.MIXED,
                                 ClassLoaderUtils.getClassLoader(SPELVariableExpressionEvaluator.class));
                 spelCompilerExpressionParser = new SpelExpressionParser(spelParserConfiguration);
+                // Adaptive compilation uses the OFF mode: expressions will only be compiled when explicitly asked to,
+                // and failures of compiled expressions will be reported instead of silently reverting to interpreted.
+                final SpelParserConfiguration spelAdaptiveParserConfiguration =
+                        new SpelParserConfiguration(
+                                SpelCompilerMode.OFF,
+                                ClassLoaderUtils.getClassLoader(SPELVariableExpressionEvaluator.class));
+                spelAdaptiveCompilerExpressionParser = new SpelExpressionParser(spelAdaptiveParserConfiguration);
             } catch (final Throwable t) {
                 if (logger.isDebugEnabled()) {
                     // We are issuing a WARN even if we checked for DEBUG, but in this case we will log the entire
@@ -118,6 +142,7 @@
         }
 
         PARSER_WITH_COMPILED_SPEL = spelCompilerExpressionParser;
+        PARSER_WITH_ADAPTIVE_COMPILED_SPEL = spelAdaptiveCompilerExpressionParser;
 
     }
 
@@ -251,16 +276,30 @@ public final Object evaluate(
              * RESOLVE THE EVALUATION ROOT
              */
             final ITemplateContext templateContext = (context instanceof ITemplateContext ? (ITemplateContext) context : null);
+            final boolean selectionTargetAsRoot =
+                    (useSelectionAsRoot && templateContext != null && templateContext.hasSelectionTarget());
             final Object evaluationRoot =
-                    (useSelectionAsRoot && templateContext != null && templateContext.hasSelectionTarget()?
-                            templateContext.getSelectionTarget() : new SPELContextMapWrapper(context, thymeleafEvaluationContext));
+                    (selectionTargetAsRoot?
+                            templateContext.getSelectionTarget() : obtainContextMapWrapper(context, thymeleafEvaluationContext));
+
+
+            /*
+             * OBTAIN THE MEMOIZED RESULTS, if the expression has been declared idempotent for the template execution.
+             * Results depending on a selection target or on local variables (e.g. th:each iteration variables), or
+             * obtained with restricted variable access are never memoized.
+             */
+            final Map<Object,Object> memoizedResults =
+                    (exp.idempotent && !selectionTargetAsRoot && !expContext.getRestrictVariableAccess() &&
+                            thymeleafEvaluationContext instanceof ThymeleafEvaluationContextWrapper &&
+                            !isLocalVariableReferenced(context, exp)?
+                            ((ThymeleafEvaluationContextWrapper) thymeleafEvaluationContext).getMemoizedResults() : null);
 
 
             /*
              * If no conversion is to be made, JUST RETURN
              */
             if (!expContext.getPerformTypeConversion()) {
-                return exp.expression.getValue(thymeleafEvaluationContext, evaluationRoot);
+                return getValue(exp, context, thymeleafEvaluationContext, evaluationRoot, null, memoizedResults);
             }
 
 
@@ -274,12 +313,12 @@ public final Object evaluate(
                 // The conversion service is a mere bridge with the Spring ConversionService, therefore
                 // this makes use of the complete Spring type conversion infrastructure, without needing
                 // to manually execute the conversion.
-                return exp.expression.getValue(thymeleafEvaluationContext, evaluationRoot, String.class);
+                return getValue(exp, context, thymeleafEvaluationContext, evaluationRoot, String.class, memoizedResults);
             }
 
             // We need type conversion, but conversion service is not a mere bridge to the Spring one,
             // so we need manual execution.
-            final Object result = exp.expression.getValue(thymeleafEvaluationContext, evaluationRoot);
+            final Object result = getValue(exp, context, thymeleafEvaluationContext, evaluationRoot, null, memoizedResults);
             return conversionService.convert(context, result, String.class);
 
 
@@ -297,6 +336,42 @@ public final Object evaluate(
 
 
 
+    private static Object getValue(
+            final ComputedSpelExpression exp, final IContext context, final EvaluationContext evaluationContext,
+            final Object evaluationRoot, final Class<?> expectedResultType, final Map<Object,Object> memoizedResults) {
+
+        if (memoizedResults == null) {
+            return exp.getValue(context, evaluationContext, evaluationRoot, expectedResultType);
+        }
+
+        // Results are memoized separately depending on whether they are to be converted to String or not
+        final int resultIndex = (expectedResultType == null? 0 : 1);
+
+        // Inside a th:object, results are also memoized separately for each bound object, as expressions like
+        // #fields.hasErrors('*') implicitly refer to it
+        final Object boundObjectExpression =
+                context.getVariable(SpringContextVariableNames.SPRING_BOUND_OBJECT_EXPRESSION);
+        final Object memoizationKey =
+                (boundObjectExpression == null?
+                        exp : new BoundObjectMemoizationKey(exp, boundObjectExpression.toString()));
+
+        Object[] results = (Object[]) memoizedResults.get(memoizationKey);
+        if (results == null) {
+            results = new Object[] { NOT_MEMOIZED, NOT_MEMOIZED };
+            memoizedResults.put(memoizationKey, results);
+        } else if (results[resultIndex] != NOT_MEMOIZED) {
+            return results[resultIndex];
+        }
+
+        final Object result = exp.getValue(context, evaluationContext, evaluationRoot, expectedResultType);
+        results[resultIndex] = result;
+        return result;
+
+    }
+
+
+
+
     private static ComputedSpelExpression obtainComputedSpelExpression(
             final IEngineConfiguration configuration, final IStandardVariableExpression expression, final String spelExpression) {
 
@@ -337,32 +412,78 @@ private static ComputedSpelExpression obtainComputedSpelExpression(
     }
 
 
+    private static boolean hasExpressionCache(final IEngineConfiguration configuration) {
+        if (SpringStandardExpressions.getSpringELExpressionCache(configuration) != null) {
+            return true;
+        }
+        final ICacheManager cacheManager = configuration.getCacheManager();
+        return (cacheManager != null && cacheManager.getExpressionCache() != null);
+    }
+
+
     private static ComputedSpelExpression getExpression(final IEngineConfiguration configuration, final String spelExpression) {
 
         ComputedSpelExpression exp = null;
         ICache<ExpressionCacheKey, Object> cache = null;
 
-        final ICacheManager cacheManager = configuration.getCacheManager();
-        if (cacheManager != null) {
-            cache = cacheManager.getExpressionCache();
-            if (cache != null) {
-                exp = (ComputedSpelExpression) cache.get(new ExpressionCacheKey(EXPRESSION_CACHE_TYPE_SPEL,spelExpression));
+        // If a dedicated SpEL expression cache has been configured, it will be used (directly keyed by the expression
+        // String). Otherwise, the engine-wide expression cache will be used
+        final SPELExpressionCache spelCache = SpringStandardExpressions.getSpringELExpressionCache(configuration);
+        if (spelCache != null) {
+            exp = (ComputedSpelExpression) spelCache.get(spelExpression);
+        } else {
+            final ICacheManager cacheManager = configuration.getCacheManager();
+            if (cacheManager != null) {
+                cache = cacheManager.getExpressionCache();
+                if (cache != null) {
+                    exp = (ComputedSpelExpression) cache.get(new ExpressionCacheKey(EXPRESSION_CACHE_TYPE_SPEL,spelExpression));
+                }
             }
         }
 
         if (exp == null) {
 
-            // SELECT THE ADEQUATE SpEL EXPRESSION PARSER depending on whether SpEL compilation is enabled
-            final SpelExpressionParser spelExpressionParser =
-                    PARSER_WITH_COMPILED_SPEL != null && SpringStandardExpressions.isSpringELCompilerEnabled(configuration)?
-                            PARSER_WITH_COMPILED_SPEL : PARSER_WITHOUT_COMPILED_SPEL;
-
-            final SpelExpression spelExpressionObject = (SpelExpression) spelExpressionParser.parseExpression(spelExpression);
             final boolean mightNeedExpressionObjects = StandardExpressionUtils.mightNeedExpressionObjects(spelExpression);
+            final boolean idempotent = SpringStandardExpressions.isIdempotentSpringELExpression(configuration, spelExpression);
+            final String[] referencedNames;
+
+            if (PARSER_WITH_ADAPTIVE_COMPILED_SPEL != null &&
+                    SpringStandardExpressions.isAdaptiveSpringELCompilerEnabled(configuration)) {
+
+                // ADAPTIVE COMPILATION: we will be the ones deciding when (and for which receivers) to compile
+                final SpelExpression spelExpressionObject =
+                        (SpelExpression) PARSER_WITH_ADAPTIVE_COMPILED_SPEL.parseExpression(spelExpression);
+                final AdaptiveSpelExpression adaptiveExpression =
+                        new AdaptiveSpelExpression(spelExpression, spelExpressionObject, PARSER_WITH_ADAPTIVE_COMPILED_SPEL);
+
+                referencedNames = (idempotent? computeReferencedNames(spelExpressionObject) : null);
+
+                exp = new ComputedSpelExpression(
+                        spelExpressionObject, mightNeedExpressionObjects,
+                        PropertyChainSpelExpression.classify(spelExpressionObject), adaptiveExpression,
+                        idempotent, referencedNames);
+
+            } else {
 
-            exp = new ComputedSpelExpression(spelExpressionObject, mightNeedExpressionObjects);
+                // SELECT THE ADEQUATE SpEL EXPRESSION PARSER depending on whether SpEL compilation is enabled
+                final SpelExpressionParser spelExpressionParser =
+                        PARSER_WITH_COMPILED_SPEL != null && SpringStandardExpressions.isSpringELCompilerEnabled(configuration)?
+                                PARSER_WITH_COMPILED_SPEL : PARSER_WITHOUT_COMPILED_SPEL;
 
-            if (cache != null && null != exp) {
+                final SpelExpression spelExpressionObject = (SpelExpression) spelExpressionParser.parseExpression(spelExpression);
+
+                referencedNames = (idempotent? computeReferencedNames(spelExpressionObject) : null);
+
+                exp = new ComputedSpelExpression(
+                        spelExpressionObject, mightNeedExpressionObjects,
+                        PropertyChainSpelExpression.classify(spelExpressionObject), null,
+                        idempotent, referencedNames);
+
+            }
+
+            if (spelCache != null) {
+                spelCache.put(spelExpression, exp);
+            } else if (cache != null) {
                 cache.put(new ExpressionCacheKey(EXPRESSION_CACHE_TYPE_SPEL,spelExpression), exp);
             }
 
@@ -374,6 +495,71 @@ private static ComputedSpelExpression getExpression(final IEngineConfiguration c
 
 
 
+    /*
+     * Computes all the property and variable names referenced anywhere in the expression. This is an
+     * over-approximation of the variables the expression might read (e.g. it includes the names of nested
+     * properties), which is used for deciding whether the result of an idempotent expression can be memoized.
+     */
+    private static String[] computeReferencedNames(final SpelExpression spelExpression) {
+        final Set<String> names = new LinkedHashSet<String>(4);
+        collectReferencedNames(spelExpression.getAST(), names);
+        return names.toArray(new String[names.size()]);
+    }
+
+
+    private static void collectReferencedNames(final SpelNode node, final Set<String> names) {
+        if (node instanceof PropertyOrFieldReference) {
+            names.add(((PropertyOrFieldReference) node).getName());
+        } else if (node instanceof VariableReference) {
+            // VariableReference offers no accessor for its name, but its AST representation is "#name"
+            names.add(node.toStringAST().substring(1));
+        }
+        final int childCount = node.getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            collectReferencedNames(node.getChild(i), names);
+        }
+    }
+
+
+    private static boolean isLocalVariableReferenced(final IExpressionContext context, final ComputedSpelExpression exp) {
+
+        if (!(context instanceof IEngineContext)) {
+            // We don't even have support for local variables!
+            return false;
+        }
+
+        // NOTE this IEngineContext interface is internal and should not be used in users' code
+        final IEngineContext engineContext = (IEngineContext) context;
+
+        for (final String referencedName : exp.referencedNames) {
+            if (engineContext.isVariableLocal(referencedName)) {
+                return true;
+            }
+        }
+        return false;
+
+    }
+
+
+
+    static SPELContextMapWrapper obtainContextMapWrapper(
+            final IContext context, final IThymeleafEvaluationContext evaluationContext) {
+
+        // Both the context and the evaluation context are kept for the whole template execution, so our own
+        // evaluation context implementations will keep (and reuse) the root wrapper instead of us creating a new
+        // one for each expression being evaluated.
+        if (evaluationContext instanceof ThymeleafEvaluationContextWrapper) {
+            return ((ThymeleafEvaluationContextWrapper) evaluationContext).getContextMapWrapper(context);
+        }
+        if (evaluationContext instanceof ThymeleafEvaluationContext) {
+            return ((ThymeleafEvaluationContext) evaluationContext).getContextMapWrapper(context);
+        }
+        return new SPELContextMapWrapper(context, evaluationContext);
+
+    }
+
+
+
     private static boolean isLocalVariableOverriding(final IExpressionContext context, final String expression) {
 
         if (!(context instanceof IEngineContext)) {
@@ -397,6 +583,99 @@ private static boolean isLocalVariableOverriding(final IExpressionContext contex
 
 
 
+    /**
+     * <p>
+     *   Parses the specified Spring EL expression and stores it in the expression cache for the specified
+     *   configuration, so that it does not need to be parsed on its first evaluation.
+     * </p>
+     * <p>
+     *   This is mainly meant for warming up an application's expression cache at startup
+     *   (see {@link org.thymeleaf.spring5.SpringTemplateEngine#prewarmSpringELExpressions(String...)}).
+     *   Expressions that cannot be parsed will be simply ignored, as they will produce the corresponding
+     *   error when (and if) they are actually evaluated. If the configuration has no cache for Spring EL
+     *   expressions (neither a dedicated one nor an engine-wide expression cache), nothing is parsed.
+     * </p>
+     *
+     * @param configuration the engine configuration.
+     * @param spelExpression the Spring EL expression to be parsed and cached.
+     * @return {@code true} if the expression could be parsed and is now cached, {@code false} if not.
+     *
+     * @since 3.0.12
+     */
+    public boolean prewarmExpression(final IEngineConfiguration configuration, final String spelExpression) {
+        if (spelExpression == null || spelExpression.trim().length() == 0) {
+            return false;
+        }
+        if (!hasExpressionCache(configuration)) {
+            // Parsed expressions would not be kept anywhere
+            return false;
+        }
+        try {
+            getExpression(configuration, spelExpression);
+            return true;
+        } catch (final Exception e) {
+            if (logger.isTraceEnabled()) {
+                logger.trace("[THYMELEAF][{}] SpringEL expression \"{}\" could not be pre-warmed: {}",
+                        new Object[] {TemplateEngine.threadIndex(), spelExpression, e.getMessage()});
+            }
+            return false;
+        }
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the adaptive compilation status of all the Spring EL expressions currently cached for the
+     *   specified configuration.
+     * </p>
+     * <p>
+     *   This information will only be available if the <em>adaptive</em> Spring EL compilation mode is enabled
+     *   (see {@link org.thymeleaf.spring5.dialect.SpringStandardDialect#setEnableAdaptiveSpringELCompiler(boolean)}),
+     *   and is mainly meant for monitoring which expressions are being executed in compiled or interpreted
+     *   mode, and which ones have been deoptimized.
+     * </p>
+     *
+     * @param configuration the engine configuration.
+     * @return the list of compilation info objects (one per cached expression), never null.
+     *
+     * @since 3.0.12
+     */
+    public List<SPELExpressionCompilationInfo> getAdaptiveCompilationInfo(final IEngineConfiguration configuration) {
+
+        final List<SPELExpressionCompilationInfo> result = new ArrayList<SPELExpressionCompilationInfo>();
+
+        final List<Object> cachedExpressions = new ArrayList<Object>();
+        final SPELExpressionCache spelCache = SpringStandardExpressions.getSpringELExpressionCache(configuration);
+        if (spelCache != null) {
+            cachedExpressions.addAll(spelCache.values());
+        } else {
+            final ICacheManager cacheManager = configuration.getCacheManager();
+            final ICache<ExpressionCacheKey, Object> cache = (cacheManager == null? null : cacheManager.getExpressionCache());
+            if (cache != null) {
+                for (final ExpressionCacheKey key : cache.keySet()) {
+                    cachedExpressions.add(cache.get(key));
+                }
+            }
+        }
+
+        for (final Object cached : cachedExpressions) {
+            if (cached instanceof ComputedSpelExpression) {
+                final AdaptiveSpelExpression adaptiveExpression = ((ComputedSpelExpression) cached).adaptiveExpression;
+                if (adaptiveExpression != null) {
+                    result.add(adaptiveExpression.getCompilationInfo());
+                }
+            }
+        }
+
+        return result;
+
+    }
+
+
+
+
     @Override
     public String toString() {
         return "SpringEL";
@@ -408,13 +687,79 @@ private static final class ComputedSpelExpression {
 
         final SpelExpression expression;
         final boolean mightNeedExpressionObjects;
-
-        ComputedSpelExpression(final SpelExpression expression, final boolean mightNeedExpressionObjects) {
+        final PropertyChainSpelExpression propertyChainExpression; // only non-null if it is a simple property chain
+        final AdaptiveSpelExpression adaptiveExpression; // only non-null if adaptive compilation is enabled
+        final boolean idempotent; // results can be memoized during a template execution
+        final String[] referencedNames; // only non-null if idempotent
+
+        ComputedSpelExpression(
+                final SpelExpression expression, final boolean mightNeedExpressionObjects,
+                final PropertyChainSpelExpression propertyChainExpression,
+                final AdaptiveSpelExpression adaptiveExpression, final boolean idempotent,
+                final String[] referencedNames) {
             super();
             this.expression = expression;
             this.mightNeedExpressionObjects = mightNeedExpressionObjects;
+            this.propertyChainExpression = propertyChainExpression;
+            this.adaptiveExpression = adaptiveExpression;
+            this.idempotent = idempotent;
+            this.referencedNames = referencedNames;
+        }
+
+        Object getValue(
+                final IContext context, final EvaluationContext evaluationContext, final Object evaluationRoot,
+                final Class<?> expectedResultType) {
+            // The fast path is not used when a result type is expected, as type conversion might depend on the
+            // type descriptor of the property being read (e.g. formatting annotations)
+            if (this.propertyChainExpression != null && expectedResultType == null) {
+                final Object result = this.propertyChainExpression.getValue(evaluationContext, evaluationRoot);
+                if (result != PropertyChainSpelExpression.NOT_APPLICABLE) {
+                    return result;
+                }
+            }
+            if (this.adaptiveExpression != null) {
+                return this.adaptiveExpression.getValue(context, evaluationContext, evaluationRoot, expectedResultType);
+            }
+            if (expectedResultType == null) {
+                return this.expression.getValue(evaluationContext, evaluationRoot);
+            }
+            return this.expression.getValue(evaluationContext, evaluationRoot, expectedResultType);
+        }
+
+
+    }
+
+
+
+
+
+    private static final class BoundObjectMemoizationKey {
+
+        private final ComputedSpelExpression expression;
+        private final String boundObjectExpression;
+
+        BoundObjectMemoizationKey(final ComputedSpelExpression expression, final String boundObjectExpression) {
+            super();
+            this.expression = expression;
+            this.boundObjectExpression = boundObjectExpression;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BoundObjectMemoizationKey)) {
+                return false;
+            }
+            final BoundObjectMemoizationKey that = (BoundObjectMemoizationKey) o;
+            return this.expression == that.expression && this.boundObjectExpression.equals(that.boundObjectExpression);
         }
 
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(this.expression) + this.boundObjectExpression.hashCode();
+        }
 
     }
 
@@ -92,6 +92,7 @@ public Object buildObject(final IExpressionContext context, final String express
             return MVC_EXPRESSION_OBJECT;
         }
         if (THEMES_EXPRESSION_OBJECT_NAME.equals(expressionObjectName)) {
+            // Cacheable (see isCacheable()), so only one will be created per template execution
             return new Themes(context);
         }
         if (FIELDS_EXPRESSION_OBJECT_NAME.equals(expressionObjectName)) {
@@ -21,6 +21,7 @@
 
 import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.util.PatternSpec;
 import org.thymeleaf.spring5.dialect.SpringStandardDialect;
 
 
@@ -43,6 +44,28 @@ public final class SpringStandardExpressions {
      */
     public static final String ENABLE_SPRING_EL_COMPILER_ATTRIBUTE_NAME = "EnableSpringELCompiler";
 
+    /**
+     * Name used for registering whether <i>adaptive Spring EL compilation</i> should be enabled if available or not.
+     *
+     * @since 3.0.12
+     */
+    public static final String ENABLE_ADAPTIVE_SPRING_EL_COMPILER_ATTRIBUTE_NAME = "EnableAdaptiveSpringELCompiler";
+
+    /**
+     * Name used for registering the (dedicated) cache of parsed Spring EL expressions.
+     *
+     * @since 3.0.12
+     */
+    public static final String SPRING_EL_EXPRESSION_CACHE_ATTRIBUTE_NAME = "SpringELExpressionCache";
+
+    /**
+     * Name used for registering the patterns of Spring EL expressions whose results can be memoized during
+     * a template execution.
+     *
+     * @since 3.0.12
+     */
+    public static final String IDEMPOTENT_SPRING_EL_EXPRESSION_PATTERNS_ATTRIBUTE_NAME = "IdempotentSpringELExpressionPatterns";
+
 
 
 
@@ -79,4 +102,97 @@ public static boolean isSpringELCompilerEnabled(final IEngineConfiguration confi
     }
 
 
+    /**
+     * <p>
+     *   Check whether adaptive compilation of Spring EL expressions should be enabled or not.
+     * </p>
+     * <p>
+     *   This is done through configuration methods at the {@link SpringStandardDialect}
+     *   instance being used, and its value is offered to the engine as an <em>execution attribute</em>.
+     * </p>
+     *
+     * @param configuration the configuration object for the current template execution environment.
+     * @return {@code true} if the adaptive SpEL compiler should be enabled if available, {@code false} if not.
+     *
+     * @since 3.0.12
+     */
+    public static boolean isAdaptiveSpringELCompilerEnabled(final IEngineConfiguration configuration) {
+        final Object enableAdaptiveSpringELCompiler =
+                configuration.getExecutionAttributes().get(ENABLE_ADAPTIVE_SPRING_EL_COMPILER_ATTRIBUTE_NAME);
+        if (enableAdaptiveSpringELCompiler == null) {
+            return false;
+        }
+        if (!(enableAdaptiveSpringELCompiler instanceof Boolean)) {
+            throw new TemplateProcessingException(
+                    "A value for the \"" + ENABLE_ADAPTIVE_SPRING_EL_COMPILER_ATTRIBUTE_NAME + "\" execution attribute " +
+                    "has been specified, but it is not of the required type Boolean. " +
+                    "(" + enableAdaptiveSpringELCompiler.getClass().getName() + ")");
+        }
+        return ((Boolean) enableAdaptiveSpringELCompiler).booleanValue();
+    }
+
+
+    /**
+     * <p>
+     *   Obtain the dedicated cache of parsed Spring EL expressions, if one has been configured.
+     * </p>
+     * <p>
+     *   This is done through configuration methods at the {@link SpringStandardDialect}
+     *   instance being used, and its value is offered to the engine as an <em>execution attribute</em>.
+     * </p>
+     *
+     * @param configuration the configuration object for the current template execution environment.
+     * @return the Spring EL expression cache, or {@code null} if no dedicated cache is being used.
+     *
+     * @since 3.0.12
+     */
+    public static SPELExpressionCache getSpringELExpressionCache(final IEngineConfiguration configuration) {
+        final Object springELExpressionCache =
+                configuration.getExecutionAttributes().get(SPRING_EL_EXPRESSION_CACHE_ATTRIBUTE_NAME);
+        if (springELExpressionCache == null) {
+            return null;
+        }
+        if (!(springELExpressionCache instanceof SPELExpressionCache)) {
+            throw new TemplateProcessingException(
+                    "A value for the \"" + SPRING_EL_EXPRESSION_CACHE_ATTRIBUTE_NAME + "\" execution attribute " +
+                    "has been specified, but it is not of the required type " + SPELExpressionCache.class.getName() + ". " +
+                    "(" + springELExpressionCache.getClass().getName() + ")");
+        }
+        return (SPELExpressionCache) springELExpressionCache;
+    }
+
+
+    /**
+     * <p>
+     *   Check whether the specified Spring EL expression has been declared as <em>idempotent</em> during a
+     *   template execution, so that its result can be memoized and reused in subsequent evaluations.
+     * </p>
+     * <p>
+     *   This is done through configuration methods at the {@link SpringStandardDialect}
+     *   instance being used, and its value is offered to the engine as an <em>execution attribute</em>.
+     * </p>
+     *
+     * @param configuration the configuration object for the current template execution environment.
+     * @param spelExpression the Spring EL expression to be checked.
+     * @return {@code true} if the expression matches any of the configured idempotent expression patterns.
+     *
+     * @since 3.0.12
+     */
+    public static boolean isIdempotentSpringELExpression(
+            final IEngineConfiguration configuration, final String spelExpression) {
+        final Object idempotentPatterns =
+                configuration.getExecutionAttributes().get(IDEMPOTENT_SPRING_EL_EXPRESSION_PATTERNS_ATTRIBUTE_NAME);
+        if (idempotentPatterns == null) {
+            return false;
+        }
+        if (!(idempotentPatterns instanceof PatternSpec)) {
+            throw new TemplateProcessingException(
+                    "A value for the \"" + IDEMPOTENT_SPRING_EL_EXPRESSION_PATTERNS_ATTRIBUTE_NAME + "\" execution attribute " +
+                    "has been specified, but it is not of the required type " + PatternSpec.class.getName() + ". " +
+                    "(" + idempotentPatterns.getClass().getName() + ")");
+        }
+        return ((PatternSpec) idempotentPatterns).matches(spelExpression);
+    }
+
+
 }
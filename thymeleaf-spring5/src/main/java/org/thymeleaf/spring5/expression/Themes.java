@@ -20,8 +20,13 @@
 
 package org.thymeleaf.spring5.expression;
 
+import java.util.Collections;
 import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.context.MessageSource;
 import org.springframework.ui.context.Theme;
 import org.thymeleaf.context.IExpressionContext;
 import org.thymeleaf.exceptions.TemplateProcessingException;
@@ -32,14 +37,34 @@
  * A utility object, accessed in Thymeleaf templates by the {@code #themes}
  * expression, that provides the same features as the Spring
  * {@code <spring:theme>} JSP tag.
+ * <p>
+ * Theme messages are cached per theme message source, locale and code. Theme
+ * sources create new themes (and therefore new message sources) whenever they are
+ * reset, so new messages are read from then on, and the messages cached for the
+ * discarded message sources are released once these are garbage collected. Note
+ * message sources that reload their messages in place (e.g. with a cache timeout)
+ * will not see these changes reflected in this cache.
+ * Only one instance of this class is created per template execution (it is
+ * cached by the expression objects of the context).
+ * </p>
  *
  * @author Emanuel Rabina
  * @author Daniel Fern&aacute;ndez
  */
 public class Themes {
 
+    // Limit to the amount of codes cached per theme and locale, so that dynamically-built codes cannot make this grow
+    private static final int MAX_CACHED_CODES = 1000;
+
+    // Message sources are weakly referenced keys, so that this cache never prevents discarded themes from being
+    // garbage collected, while keeping their messages for as long as they are in use.
+    private static final Map<MessageSource,ConcurrentHashMap<Locale,ConcurrentHashMap<String,String>>> THEME_MESSAGES =
+            Collections.synchronizedMap(
+                    new WeakHashMap<MessageSource, ConcurrentHashMap<Locale, ConcurrentHashMap<String, String>>>(4));
+
     private final Theme theme;
     private final Locale locale;
+    private final ConcurrentHashMap<String,String> messages;
 
     /**
      * Constructor, obtains the current theme and locale from the processing
@@ -53,6 +78,7 @@ public Themes(final IExpressionContext context) {
         this.locale = context.getLocale();
         final IThymeleafRequestContext requestContext = SpringContextUtils.getRequestContext(context);
         this.theme = requestContext != null ? requestContext.getTheme() : null;
+        this.messages = (this.theme != null ? getThemeMessages(this.theme.getMessageSource(), this.locale) : null);
     }
 
     /**
@@ -68,7 +94,47 @@ public String code(final String code) {
             throw new TemplateProcessingException("Theme cannot be resolved because RequestContext was not found. "
                 + "Are you using a Context object without a RequestContext variable?");
         }
-        return this.theme.getMessageSource().getMessage(code, null, "", this.locale);
+        if (this.messages == null) {
+            return this.theme.getMessageSource().getMessage(code, null, "", this.locale);
+        }
+        String message = this.messages.get(code);
+        if (message == null) {
+            // Specifying a default message means no exceptions will be thrown for missing codes
+            message = this.theme.getMessageSource().getMessage(code, null, "", this.locale);
+            if (message != null && this.messages.size() < MAX_CACHED_CODES) {
+                this.messages.put(code, message);
+            }
+        }
+        return message;
+    }
+
+
+    private static ConcurrentHashMap<String,String> getThemeMessages(
+            final MessageSource messageSource, final Locale locale) {
+
+        if (messageSource == null || locale == null) {
+            return null;
+        }
+
+        ConcurrentHashMap<Locale,ConcurrentHashMap<String,String>> messagesByLocale;
+        synchronized (THEME_MESSAGES) {
+            messagesByLocale = THEME_MESSAGES.get(messageSource);
+            if (messagesByLocale == null) {
+                messagesByLocale = new ConcurrentHashMap<Locale, ConcurrentHashMap<String, String>>(4);
+                THEME_MESSAGES.put(messageSource, messagesByLocale);
+            }
+        }
+
+        ConcurrentHashMap<String,String> messages = messagesByLocale.get(locale);
+        if (messages == null) {
+            final ConcurrentHashMap<String,String> newMessages = new ConcurrentHashMap<String, String>(16);
+            messages = messagesByLocale.putIfAbsent(locale, newMessages);
+            if (messages == null) {
+                messages = newMessages;
+            }
+        }
+        return messages;
+
     }
 
 
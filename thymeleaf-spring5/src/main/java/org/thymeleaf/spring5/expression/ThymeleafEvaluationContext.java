@@ -19,13 +19,28 @@
  */
 package org.thymeleaf.spring5.expression;
 
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.context.ApplicationContext;
-import org.springframework.context.expression.BeanFactoryResolver;
 import org.springframework.context.expression.MapAccessor;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.expression.BeanResolver;
+import org.springframework.expression.ConstructorResolver;
+import org.springframework.expression.MethodFilter;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.OperatorOverloader;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.TypeComparator;
+import org.springframework.expression.TypeConverter;
+import org.springframework.expression.TypeLocator;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.expression.spel.support.StandardTypeConverter;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.thymeleaf.context.IContext;
 import org.thymeleaf.expression.IExpressionObjects;
 import org.thymeleaf.spring5.view.ThymeleafView;
 import org.thymeleaf.standard.expression.RestrictedRequestAccessUtils;
@@ -46,12 +61,23 @@
  *   Also, this evaluation context (which is usually instanced at the
  *   {@link ThymeleafView} initialization) links the execution of expressions
  *   with the available {@link BeanFactory} and {@link ConversionService} instances, used during evaluation.
+ *   References to singleton beans (e.g. {@code ${@someBean}}) are cached until the {@link ApplicationContext}
+ *   is refreshed.
  * </p>
  * <p>
  *   Before executing a Spring EL expression using this evaluation context, it should be enriched with the
  *   variables to be made accessible (like {@code #variableName}), using a
  *   {@link ThymeleafEvaluationContextWrapper} object.
  * </p>
+ * <p>
+ *   Given the cost of creating instances of this class, views will normally not create a new one for each
+ *   template execution, but obtain a lightweight per-execution context by means of
+ *   {@link #createForTemplateExecution(ApplicationContext, ConversionService)}. This wraps a shared instance
+ *   of this class (one per {@link ApplicationContext} and {@link ConversionService}) that holds the property accessors,
+ *   resolvers and type converter, and which should never be modified. Calling any of the mutators of a shared
+ *   instance (e.g. {@link #addPropertyAccessor(PropertyAccessor)} or {@link #setBeanResolver(BeanResolver)})
+ *   raises an {@link IllegalStateException}.
+ * </p>
  *
  * @author Daniel Fern&aacute;ndez
  *
@@ -67,24 +93,40 @@
 
     private static final MapAccessor MAP_ACCESSOR_INSTANCE = new MapAccessor();
 
+    // Marker key for shared instances created without a ConversionService
+    private static final Object NO_CONVERSION_SERVICE = new Object();
+
+    // Shared instances, per ApplicationContext and ConversionService. Soft references are used so that this cache
+    // never prevents ApplicationContexts (or ConversionServices) from being garbage collected.
+    private static final ConcurrentReferenceHashMap<ApplicationContext, ConcurrentReferenceHashMap<Object, ThymeleafEvaluationContext>> SHARED_INSTANCES =
+            new ConcurrentReferenceHashMap<ApplicationContext, ConcurrentReferenceHashMap<Object, ThymeleafEvaluationContext>>(4);
+
 
     private final ApplicationContext applicationContext;
+    private final boolean shared;
 
     private IExpressionObjects expressionObjects = null;
     private boolean variableAccessRestricted = false;
+    private SPELContextMapWrapper contextMapWrapper = null;
 
 
 
 
     public ThymeleafEvaluationContext(final ApplicationContext applicationContext, final ConversionService conversionService) {
-        
+        this(applicationContext, conversionService, false);
+    }
+
+
+    private ThymeleafEvaluationContext(
+            final ApplicationContext applicationContext, final ConversionService conversionService, final boolean shared) {
+
         super();
 
         Validate.notNull(applicationContext, "Application Context cannot be null");
         // ConversionService CAN be null
 
         this.applicationContext = applicationContext;
-        this.setBeanResolver(new BeanFactoryResolver(applicationContext));
+        this.setBeanResolver(new CachingBeanFactoryResolver(applicationContext));
         if (conversionService != null) {
             this.setTypeConverter(new StandardTypeConverter(conversionService));
         }
@@ -92,6 +134,71 @@ public ThymeleafEvaluationContext(final ApplicationContext applicationContext, f
         this.addPropertyAccessor(SPELContextPropertyAccessor.INSTANCE);
         this.addPropertyAccessor(MAP_ACCESSOR_INSTANCE);
 
+        // Only set once the configuration above has been applied, as it goes through mutators checking this flag
+        this.shared = shared;
+        if (this.shared) {
+            // Some of the StandardEvaluationContext structures are lazily initialized. We want all of them to be
+            // initialized before this instance is published for concurrent use.
+            this.getConstructorResolvers();
+            this.getMethodResolvers();
+            this.getTypeLocator();
+        }
+
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Creates a new, lightweight {@link IThymeleafEvaluationContext} to be used for a single template execution.
+     * </p>
+     * <p>
+     *   The returned object only holds the per-execution state (expression objects, variable access restriction
+     *   and additional variables), and delegates everything else to a shared {@link ThymeleafEvaluationContext}
+     *   instance that is created only once for each {@link ApplicationContext} and {@link ConversionService}.
+     * </p>
+     *
+     * @param applicationContext the application context (cannot be null).
+     * @param conversionService the conversion service (can be null).
+     * @return the evaluation context to be used for the template execution.
+     *
+     * @since 3.0.12
+     */
+    public static IThymeleafEvaluationContext createForTemplateExecution(
+            final ApplicationContext applicationContext, final ConversionService conversionService) {
+        return new ThymeleafEvaluationContextWrapper(getSharedInstance(applicationContext, conversionService));
+    }
+
+
+    private static ThymeleafEvaluationContext getSharedInstance(
+            final ApplicationContext applicationContext, final ConversionService conversionService) {
+
+        Validate.notNull(applicationContext, "Application Context cannot be null");
+
+        ConcurrentReferenceHashMap<Object, ThymeleafEvaluationContext> instancesForApplicationContext =
+                SHARED_INSTANCES.get(applicationContext);
+        if (instancesForApplicationContext == null) {
+            final ConcurrentReferenceHashMap<Object, ThymeleafEvaluationContext> newInstances =
+                    new ConcurrentReferenceHashMap<Object, ThymeleafEvaluationContext>(4);
+            instancesForApplicationContext = SHARED_INSTANCES.putIfAbsent(applicationContext, newInstances);
+            if (instancesForApplicationContext == null) {
+                instancesForApplicationContext = newInstances;
+            }
+        }
+
+        final Object key = (conversionService != null ? conversionService : NO_CONVERSION_SERVICE);
+        ThymeleafEvaluationContext instance = instancesForApplicationContext.get(key);
+        if (instance == null) {
+            final ThymeleafEvaluationContext newInstance =
+                    new ThymeleafEvaluationContext(applicationContext, conversionService, true);
+            instance = instancesForApplicationContext.putIfAbsent(key, newInstance);
+            if (instance == null) {
+                instance = newInstance;
+            }
+        }
+        return instance;
+
     }
 
 
@@ -100,6 +207,125 @@ public ApplicationContext getApplicationContext() {
     }
 
 
+    @Override
+    public void setVariable(final String name, final Object value) {
+        checkNotShared();
+        super.setVariable(name, value);
+    }
+
+
+    @Override
+    public void setVariables(final Map<String, Object> variables) {
+        checkNotShared();
+        super.setVariables(variables);
+    }
+
+
+    @Override
+    public void registerFunction(final String name, final Method method) {
+        checkNotShared();
+        super.registerFunction(name, method);
+    }
+
+
+    @Override
+    public void registerMethodFilter(final Class<?> type, final MethodFilter filter) throws IllegalStateException {
+        checkNotShared();
+        super.registerMethodFilter(type, filter);
+    }
+
+
+    @Override
+    public void setRootObject(final Object rootObject, final TypeDescriptor typeDescriptor) {
+        checkNotShared();
+        super.setRootObject(rootObject, typeDescriptor);
+    }
+
+
+    @Override
+    public void setRootObject(final Object rootObject) {
+        checkNotShared();
+        super.setRootObject(rootObject);
+    }
+
+
+    @Override
+    public void setPropertyAccessors(final List<PropertyAccessor> propertyAccessors) {
+        checkNotShared();
+        super.setPropertyAccessors(propertyAccessors);
+    }
+
+
+    @Override
+    public void addPropertyAccessor(final PropertyAccessor accessor) {
+        checkNotShared();
+        super.addPropertyAccessor(accessor);
+    }
+
+
+    @Override
+    public void setConstructorResolvers(final List<ConstructorResolver> constructorResolvers) {
+        checkNotShared();
+        super.setConstructorResolvers(constructorResolvers);
+    }
+
+
+    @Override
+    public void addConstructorResolver(final ConstructorResolver resolver) {
+        checkNotShared();
+        super.addConstructorResolver(resolver);
+    }
+
+
+    @Override
+    public void setMethodResolvers(final List<MethodResolver> methodResolvers) {
+        checkNotShared();
+        super.setMethodResolvers(methodResolvers);
+    }
+
+
+    @Override
+    public void addMethodResolver(final MethodResolver resolver) {
+        checkNotShared();
+        super.addMethodResolver(resolver);
+    }
+
+
+    @Override
+    public void setBeanResolver(final BeanResolver beanResolver) {
+        checkNotShared();
+        super.setBeanResolver(beanResolver);
+    }
+
+
+    @Override
+    public void setTypeLocator(final TypeLocator typeLocator) {
+        checkNotShared();
+        super.setTypeLocator(typeLocator);
+    }
+
+
+    @Override
+    public void setTypeConverter(final TypeConverter typeConverter) {
+        checkNotShared();
+        super.setTypeConverter(typeConverter);
+    }
+
+
+    @Override
+    public void setTypeComparator(final TypeComparator typeComparator) {
+        checkNotShared();
+        super.setTypeComparator(typeComparator);
+    }
+
+
+    @Override
+    public void setOperatorOverloader(final OperatorOverloader operatorOverloader) {
+        checkNotShared();
+        super.setOperatorOverloader(operatorOverloader);
+    }
+
+
     @Override
     public Object lookupVariable(final String name) {
 
@@ -134,6 +360,7 @@ public boolean isVariableAccessRestricted() {
     }
 
     public void setVariableAccessRestricted(final boolean restricted) {
+        checkNotShared();
         this.variableAccessRestricted = restricted;
     }
 
@@ -142,8 +369,39 @@ public IExpressionObjects getExpressionObjects() {
     }
 
     public void setExpressionObjects(final IExpressionObjects expressionObjects) {
+        checkNotShared();
         this.expressionObjects = expressionObjects;
     }
 
 
+    private void checkNotShared() {
+        if (this.shared) {
+            throw new IllegalStateException(
+                    "Cannot modify a shared " + ThymeleafEvaluationContext.class.getSimpleName() + " instance. " +
+                    "Per-execution state should be set on the " + IThymeleafEvaluationContext.class.getSimpleName() +
+                    " object returned by #createForTemplateExecution(...) instead.");
+        }
+    }
+
+
+    /*
+     * Returns the SPELContextMapWrapper to be used as evaluation root for expressions executed on the
+     * specified context. As both context and evaluation context are kept for the entire template execution, the
+     * same wrapper can be reused for all the expressions evaluated in it instead of creating one per evaluation.
+     */
+    SPELContextMapWrapper getContextMapWrapper(final IContext context) {
+        if (this.shared) {
+            // Shared instances are never modified, not even for caching the evaluation root
+            return new SPELContextMapWrapper(context, this);
+        }
+        final SPELContextMapWrapper wrapper = this.contextMapWrapper;
+        if (wrapper != null && wrapper.isWrapping(context, this)) {
+            return wrapper;
+        }
+        final SPELContextMapWrapper newWrapper = new SPELContextMapWrapper(context, this);
+        this.contextMapWrapper = newWrapper;
+        return newWrapper;
+    }
+
+
 }
@@ -36,6 +36,7 @@
 import org.springframework.expression.TypeLocator;
 import org.springframework.expression.TypedValue;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.thymeleaf.context.IContext;
 import org.thymeleaf.expression.IExpressionObjects;
 import org.thymeleaf.standard.expression.RestrictedRequestAccessUtils;
 import org.thymeleaf.standard.expression.StandardExpressionObjectFactory;
@@ -70,6 +71,8 @@ public final class ThymeleafEvaluationContextWrapper implements IThymeleafEvalua
     private IExpressionObjects expressionObjects = null;
     private boolean requestParametersRestricted = false;
     private Map<String,Object> additionalVariables = null;
+    private SPELContextMapWrapper contextMapWrapper = null;
+    private Map<Object,Object> memoizedResults = null;
 
 
 
@@ -105,6 +108,26 @@ public ThymeleafEvaluationContextWrapper(final EvaluationContext delegate) {
 
     }
 
+
+    /**
+     * <p>
+     *   Returns the {@link EvaluationContext} being wrapped by this object.
+     * </p>
+     * <p>
+     *   Note this can be a {@link ThymeleafEvaluationContext} shared by all the template executions for the same
+     *   {@link org.springframework.context.ApplicationContext} (see
+     *   {@link ThymeleafEvaluationContext#createForTemplateExecution(org.springframework.context.ApplicationContext,
+     *   org.springframework.core.convert.ConversionService)}), in which case it cannot be modified.
+     * </p>
+     *
+     * @return the delegate evaluation context.
+     *
+     * @since 3.0.12
+     */
+    public EvaluationContext getDelegate() {
+        return this.delegate;
+    }
+
     
     public TypedValue getRootObject() {
         return this.delegate.getRootObject();
@@ -198,4 +221,32 @@ public void setExpressionObjects(final IExpressionObjects expressionObjects) {
     }
 
 
+    /*
+     * Returns the SPELContextMapWrapper to be used as evaluation root for expressions executed on the
+     * specified context. As both context and evaluation context are kept for the entire template execution, the
+     * same wrapper can be reused for all the expressions evaluated in it instead of creating one per evaluation.
+     */
+    SPELContextMapWrapper getContextMapWrapper(final IContext context) {
+        final SPELContextMapWrapper wrapper = this.contextMapWrapper;
+        if (wrapper != null && wrapper.isWrapping(context, this)) {
+            return wrapper;
+        }
+        final SPELContextMapWrapper newWrapper = new SPELContextMapWrapper(context, this);
+        this.contextMapWrapper = newWrapper;
+        return newWrapper;
+    }
+
+
+    /*
+     * Returns the map in which the results of expressions marked as idempotent are memoized. As this evaluation
+     * context wrapper is kept for the entire template execution, so will be these results.
+     */
+    Map<Object,Object> getMemoizedResults() {
+        if (this.memoizedResults == null) {
+            this.memoizedResults = new HashMap<Object,Object>(8);
+        }
+        return this.memoizedResults;
+    }
+
+
 }
@@ -0,0 +1,270 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.messageresolver;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ *   Cache of message patterns resolved from a Spring {@code MessageSource}, used by {@link SpringMessageResolver}
+ *   so that messages referenced again and again from templates (e.g. labels) do not need to be looked up at the
+ *   message source and parsed into a {@link MessageFormat} every time.
+ * </p>
+ * <p>
+ *   Messages are formatted in the same way as Spring's {@code AbstractMessageSource} does (with its default
+ *   configuration): messages without parameters are returned as is, without any formatting, and messages with
+ *   parameters are formatted with a {@link MessageFormat} created for the pattern and the locale. Each
+ *   {@link MessageFormat} is parsed only once, and a spare (cloned) instance is kept for reuse, so that clones are
+ *   only needed when several threads format the same message at the same time (instances are not thread-safe).
+ * </p>
+ * <p>
+ *   Entries expire after a configurable amount of time so that changes to reloadable message sources are
+ *   eventually applied. The cache is bounded: when its maximum size is reached, expired entries are evicted and, if
+ *   still needed, the entries closest to their expiration (i.e. the oldest ones) too.
+ *   Instances are created for a specific state of the message source, of which they keep the startup date
+ *   if it is an {@code ApplicationContext}, so that the cache can be discarded once the context is refreshed.
+ * </p>
+ * <p>
+ *   Objects of this class are thread-safe.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+final class MessageFormatCache {
+
+    // Percentage of entries (over max size) that will be evicted in each eviction pass
+    private static final int EVICTION_PERCENTAGE = 10;
+
+    private static final Comparator<EvictionCandidate> EXPIRATION_COMPARATOR =
+            new Comparator<EvictionCandidate>() {
+                public int compare(final EvictionCandidate o1, final EvictionCandidate o2) {
+                    return Long.compare(o1.message.expiration, o2.message.expiration);
+                }
+            };
+
+
+    private final int maxSize;
+    private final long ttlMs;
+    private final long startupDate;
+    private final ConcurrentHashMap<Locale,ConcurrentHashMap<String,CachedMessage>> messagesByLocale =
+            new ConcurrentHashMap<Locale, ConcurrentHashMap<String, CachedMessage>>(4);
+    private final AtomicInteger size = new AtomicInteger(0);
+    private final Object evictionLock = new Object();
+
+
+
+    MessageFormatCache(final int maxSize, final long ttlMs, final long startupDate) {
+        super();
+        this.maxSize = maxSize;
+        this.ttlMs = ttlMs;
+        this.startupDate = startupDate;
+    }
+
+
+
+    long getStartupDate() {
+        return this.startupDate;
+    }
+
+
+    /*
+     * Returns null if the message is not cached (or its entry has expired)
+     */
+    CachedMessage get(final String key, final Locale locale) {
+
+        final ConcurrentHashMap<String,CachedMessage> messages = this.messagesByLocale.get(locale);
+        if (messages == null) {
+            return null;
+        }
+
+        final CachedMessage message = messages.get(key);
+        if (message == null) {
+            return null;
+        }
+
+        if (message.expiration < System.currentTimeMillis()) {
+            if (messages.remove(key, message)) {
+                this.size.decrementAndGet();
+            }
+            return null;
+        }
+        return message;
+
+    }
+
+
+    CachedMessage put(final String key, final Locale locale, final String pattern) {
+
+        final CachedMessage message =
+                new CachedMessage(pattern, locale, System.currentTimeMillis() + this.ttlMs);
+
+        if (this.size.get() >= this.maxSize) {
+            evict();
+        }
+
+        ConcurrentHashMap<String,CachedMessage> messages = this.messagesByLocale.get(locale);
+        if (messages == null) {
+            final ConcurrentHashMap<String,CachedMessage> newMessages = new ConcurrentHashMap<String, CachedMessage>(64);
+            messages = this.messagesByLocale.putIfAbsent(locale, newMessages);
+            if (messages == null) {
+                messages = newMessages;
+            }
+        }
+
+        if (messages.put(key, message) == null) {
+            this.size.incrementAndGet();
+        }
+        return message;
+
+    }
+
+
+    private void evict() {
+
+        synchronized (this.evictionLock) {
+
+            if (this.size.get() < this.maxSize) {
+                // Another thread already performed the eviction
+                return;
+            }
+
+            // Expired entries go first
+            final long now = System.currentTimeMillis();
+            final List<EvictionCandidate> candidates = new ArrayList<EvictionCandidate>(this.maxSize + 16);
+            for (final ConcurrentHashMap<String,CachedMessage> messages : this.messagesByLocale.values()) {
+                for (final Map.Entry<String,CachedMessage> entry : messages.entrySet()) {
+                    if (entry.getValue().expiration < now) {
+                        if (messages.remove(entry.getKey(), entry.getValue())) {
+                            this.size.decrementAndGet();
+                        }
+                    } else {
+                        candidates.add(new EvictionCandidate(messages, entry.getKey(), entry.getValue()));
+                    }
+                }
+            }
+
+            final int size = this.size.get();
+            if (size < this.maxSize) {
+                return;
+            }
+
+            // Then the oldest ones (all entries have the same TTL)
+            Collections.sort(candidates, EXPIRATION_COMPARATOR);
+            final int toBeEvicted = (size - this.maxSize) + Math.max(1, (this.maxSize * EVICTION_PERCENTAGE) / 100);
+            int evicted = 0;
+            for (final EvictionCandidate candidate : candidates) {
+                if (evicted >= toBeEvicted) {
+                    break;
+                }
+                if (candidate.messages.remove(candidate.key, candidate.message)) {
+                    this.size.decrementAndGet();
+                    evicted++;
+                }
+            }
+
+        }
+
+    }
+
+
+    void clear() {
+        this.messagesByLocale.clear();
+        this.size.set(0);
+    }
+
+
+
+
+    static final class CachedMessage {
+
+        private final String pattern;
+        private final Locale locale;
+        private final long expiration;
+        // Only created when needed (messages used without parameters never need to be parsed)
+        private volatile MessageFormat messageFormat = null;
+        // Spare clone of the message format, taken by the thread formatting the message and given back afterwards
+        private final AtomicReference<MessageFormat> spareMessageFormat = new AtomicReference<MessageFormat>();
+
+        CachedMessage(final String pattern, final Locale locale, final long expiration) {
+            super();
+            this.pattern = pattern;
+            this.locale = locale;
+            this.expiration = expiration;
+        }
+
+        String format(final Object[] parameters) {
+
+            if (parameters == null || parameters.length == 0) {
+                return this.pattern;
+            }
+
+            MessageFormat format = this.spareMessageFormat.getAndSet(null);
+            if (format == null) {
+                // No spare instance available (first use, or being used by another thread right now)
+                MessageFormat parsedFormat = this.messageFormat;
+                if (parsedFormat == null) {
+                    // Might be created more than once by concurrent threads, which is harmless
+                    parsedFormat = new MessageFormat(this.pattern, this.locale);
+                    this.messageFormat = parsedFormat;
+                }
+                format = (MessageFormat) parsedFormat.clone();
+            }
+            final String result = format.format(parameters);
+            this.spareMessageFormat.compareAndSet(null, format);
+            return result;
+
+        }
+
+    }
+
+
+
+
+
+    private static final class EvictionCandidate {
+
+        final ConcurrentHashMap<String,CachedMessage> messages;
+        final String key;
+        final CachedMessage message;
+
+        EvictionCandidate(
+                final ConcurrentHashMap<String,CachedMessage> messages, final String key, final CachedMessage message) {
+            super();
+            this.messages = messages;
+            this.key = key;
+            this.message = message;
+        }
+
+    }
+
+
+}
@@ -0,0 +1,226 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.messageresolver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ *   Negative cache of message keys known not to be resolvable by a Spring {@code MessageSource} for a
+ *   specific locale, used by {@link SpringMessageResolver} so that keys deliberately missing from the Spring
+ *   message bundles (and resolved from template-local messages instead) do not need to be looked up again
+ *   for every resolution.
+ * </p>
+ * <p>
+ *   Entries expire after a configurable amount of time so that messages added to reloadable message sources
+ *   are eventually found. The cache is bounded: when its maximum size is reached, expired entries are evicted and, if
+ *   still needed, the entries closest to their expiration (i.e. the oldest ones) too.
+ * </p>
+ * <p>
+ *   Instances are created for a specific state of the message source, of which they keep the startup date (if
+ *   it is an {@code ApplicationContext}, so that the cache can be discarded once the context is refreshed) and
+ *   whether it is configured to use message codes as default messages (in which case missing keys still
+ *   need to be resolved by the message source, but without any risk of exceptions being thrown). A maximum size or TTL of zero disables the caching of missing keys.
+ * </p>
+ * <p>
+ *   Objects of this class are thread-safe.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+final class MissingMessageCache {
+
+    // Percentage of entries (over max size) that will be evicted in each eviction pass
+    private static final int EVICTION_PERCENTAGE = 10;
+
+    private static final Comparator<EvictionCandidate> EXPIRATION_COMPARATOR =
+            new Comparator<EvictionCandidate>() {
+                public int compare(final EvictionCandidate o1, final EvictionCandidate o2) {
+                    return o1.expiration.compareTo(o2.expiration);
+                }
+            };
+
+
+    private final int maxSize;
+    private final long ttlMs;
+    private final long startupDate;
+    private final boolean useCodeAsDefaultMessage;
+    private final ConcurrentHashMap<Locale,ConcurrentHashMap<String,Long>> expirationsByLocale =
+            new ConcurrentHashMap<Locale, ConcurrentHashMap<String, Long>>(4);
+    private final AtomicInteger size = new AtomicInteger(0);
+    private final Object evictionLock = new Object();
+
+
+
+    MissingMessageCache(
+            final int maxSize, final long ttlMs, final long startupDate, final boolean useCodeAsDefaultMessage) {
+        super();
+        this.maxSize = (ttlMs <= 0L ? 0 : maxSize);
+        this.ttlMs = ttlMs;
+        this.startupDate = startupDate;
+        this.useCodeAsDefaultMessage = useCodeAsDefaultMessage;
+    }
+
+
+
+    long getStartupDate() {
+        return this.startupDate;
+    }
+
+
+    boolean isUseCodeAsDefaultMessage() {
+        return this.useCodeAsDefaultMessage;
+    }
+
+
+
+    boolean isMissing(final String key, final Locale locale) {
+
+        final ConcurrentHashMap<String,Long> expirations = this.expirationsByLocale.get(locale);
+        if (expirations == null) {
+            return false;
+        }
+
+        final Long expiration = expirations.get(key);
+        if (expiration == null) {
+            return false;
+        }
+
+        if (expiration.longValue() < System.currentTimeMillis()) {
+            if (expirations.remove(key, expiration)) {
+                this.size.decrementAndGet();
+            }
+            return false;
+        }
+        return true;
+
+    }
+
+
+    void markMissing(final String key, final Locale locale) {
+
+        if (this.maxSize <= 0) {
+            return;
+        }
+
+        if (this.size.get() >= this.maxSize) {
+            evict();
+        }
+
+        ConcurrentHashMap<String,Long> expirations = this.expirationsByLocale.get(locale);
+        if (expirations == null) {
+            final ConcurrentHashMap<String,Long> newExpirations = new ConcurrentHashMap<String, Long>(32);
+            expirations = this.expirationsByLocale.putIfAbsent(locale, newExpirations);
+            if (expirations == null) {
+                expirations = newExpirations;
+            }
+        }
+
+        if (expirations.put(key, Long.valueOf(System.currentTimeMillis() + this.ttlMs)) == null) {
+            this.size.incrementAndGet();
+        }
+
+    }
+
+
+    private void evict() {
+
+        synchronized (this.evictionLock) {
+
+            if (this.size.get() < this.maxSize) {
+                // Another thread already performed the eviction
+                return;
+            }
+
+            // Expired entries go first
+            final long now = System.currentTimeMillis();
+            final List<EvictionCandidate> candidates = new ArrayList<EvictionCandidate>(this.maxSize + 16);
+            for (final ConcurrentHashMap<String,Long> expirations : this.expirationsByLocale.values()) {
+                for (final Map.Entry<String,Long> entry : expirations.entrySet()) {
+                    if (entry.getValue().longValue() < now) {
+                        if (expirations.remove(entry.getKey(), entry.getValue())) {
+                            this.size.decrementAndGet();
+                        }
+                    } else {
+                        candidates.add(new EvictionCandidate(expirations, entry.getKey(), entry.getValue()));
+                    }
+                }
+            }
+
+            final int size = this.size.get();
+            if (size < this.maxSize) {
+                return;
+            }
+
+            // Then the oldest ones (all entries have the same TTL)
+            Collections.sort(candidates, EXPIRATION_COMPARATOR);
+            final int toBeEvicted = (size - this.maxSize) + Math.max(1, (this.maxSize * EVICTION_PERCENTAGE) / 100);
+            int evicted = 0;
+            for (final EvictionCandidate candidate : candidates) {
+                if (evicted >= toBeEvicted) {
+                    break;
+                }
+                if (candidate.expirations.remove(candidate.key, candidate.expiration)) {
+                    this.size.decrementAndGet();
+                    evicted++;
+                }
+            }
+
+        }
+
+    }
+
+
+    void clear() {
+        this.expirationsByLocale.clear();
+        this.size.set(0);
+    }
+
+
+
+
+
+    private static final class EvictionCandidate {
+
+        final ConcurrentHashMap<String,Long> expirations;
+        final String key;
+        final Long expiration;
+
+        EvictionCandidate(final ConcurrentHashMap<String,Long> expirations, final String key, final Long expiration) {
+            super();
+            this.expirations = expirations;
+            this.key = key;
+            this.expiration = expiration;
+        }
+
+    }
+
+
+}
@@ -19,10 +19,18 @@
  */
 package org.thymeleaf.spring5.messageresolver;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.MessageSource;
 import org.springframework.context.MessageSourceAware;
+import org.springframework.context.MessageSourceResolvable;
 import org.springframework.context.NoSuchMessageException;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.ITemplateContext;
@@ -46,6 +54,19 @@
  * <p>
  *   Origin-based resolution is done in exactly the same way as in {@link StandardMessageResolver}.
  * </p>
+ * <p>
+ *   Keys not found at the {@link MessageSource} are resolved without making the message source create and throw
+ *   exceptions. Optionally, these keys can also be remembered (per locale) for a short amount of time, so that
+ *   keys that are only resolvable by means of origin-based resolution do not need to be looked up at the
+ *   message source every time. See {@link #setMissingMessageCacheTTLMs(long)} and
+ *   {@link #setMissingMessageCacheMaxSize(int)}. This cache is discarded when the message source is changed
+ *   or when the {@link ApplicationContext} acting as message source is refreshed.
+ * </p>
+ * <p>
+ *   Optionally, message patterns resolved from the {@link MessageSource} can also be cached along with their
+ *   parsed {@link java.text.MessageFormat} objects (see {@link #setMessageFormatCacheMaxSize(int)}), and all the
+ *   messages used by each template can be prefetched in bulk (see {@link #setPrefetchTemplateMessages(boolean)}).
+ * </p>
  *
  * @author Daniel Fern&aacute;ndez
  * 
@@ -59,9 +80,54 @@
 
     private static final Logger logger = LoggerFactory.getLogger(SpringMessageResolver.class);
 
+    /**
+     * <p>
+     *   Default amount of milliseconds during which a message key is considered missing at the
+     *   {@link MessageSource} once a lookup has not found it: <b>0</b> (no caching of missing message keys).
+     * </p>
+     */
+    public static final long DEFAULT_MISSING_MESSAGE_CACHE_TTL_MS = 0L;
+
+    /**
+     * <p>
+     *   Default maximum amount of missing message keys (for all locales) remembered: <b>1000</b>.
+     * </p>
+     */
+    public static final int DEFAULT_MISSING_MESSAGE_CACHE_MAX_SIZE = 1000;
+
+    /**
+     * <p>
+     *   Default amount of milliseconds during which a message pattern resolved from the {@link MessageSource}
+     *   is cached: <b>60000</b>.
+     * </p>
+     */
+    public static final long DEFAULT_MESSAGE_FORMAT_CACHE_TTL_MS = 60000L;
+
+    /**
+     * <p>
+     *   Default maximum amount of message patterns (for all locales) cached: <b>0</b> (no caching).
+     * </p>
+     */
+    public static final int DEFAULT_MESSAGE_FORMAT_CACHE_MAX_SIZE = 0;
+
+    // Default message used for detecting missing messages without making the MessageSource throw an exception
+    private static final String MISSING_MESSAGE = "%%THYMELEAF_MISSING_MESSAGE%%";
+    private static final String USE_CODE_AS_DEFAULT_MESSAGE_PROBE_KEY = "%%THYMELEAF_MESSAGE_PROBE%%";
+    // Marks missing messages in template message snapshots
+    private static final MessageFormatCache.CachedMessage MISSING_CACHED_MESSAGE =
+            new MessageFormatCache.CachedMessage(MISSING_MESSAGE, Locale.ROOT, Long.MAX_VALUE);
+
 
     private final StandardMessageResolver standardMessageResolver;
     private MessageSource messageSource;
+    private long missingMessageCacheTTLMs = DEFAULT_MISSING_MESSAGE_CACHE_TTL_MS;
+    private int missingMessageCacheMaxSize = DEFAULT_MISSING_MESSAGE_CACHE_MAX_SIZE;
+    private volatile MissingMessageCache missingMessageCache = null;
+    private long messageFormatCacheTTLMs = DEFAULT_MESSAGE_FORMAT_CACHE_TTL_MS;
+    private int messageFormatCacheMaxSize = DEFAULT_MESSAGE_FORMAT_CACHE_MAX_SIZE;
+    private volatile MessageFormatCache messageFormatCache = null;
+    private boolean prefetchTemplateMessages = false;
+    private volatile TemplateMessageSnapshots templateMessageSnapshots = null;
 
 
     public SpringMessageResolver() {
@@ -113,6 +179,340 @@ public final MessageSource getMessageSource() {
      */
     public final void setMessageSource(final MessageSource messageSource) {
         this.messageSource = messageSource;
+        this.missingMessageCache = null;
+        this.messageFormatCache = null;
+        this.templateMessageSnapshots = null;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of milliseconds during which a message key is considered missing at the
+     *   {@link MessageSource} (for a specific locale) once a lookup has not found it.
+     * </p>
+     * <p>
+     *   Default value is {@link #DEFAULT_MISSING_MESSAGE_CACHE_TTL_MS}.
+     * </p>
+     *
+     * @return the TTL of missing message keys, in milliseconds.
+     * @since 3.0.12
+     */
+    public final long getMissingMessageCacheTTLMs() {
+        return this.missingMessageCacheTTLMs;
+    }
+
+
+    /**
+     * <p>
+     *   Sets the amount of milliseconds during which a message key is considered missing at the
+     *   {@link MessageSource} (for a specific locale) once a lookup has not found it. During this time,
+     *   the key will be directly resolved by means of origin-based resolution.
+     * </p>
+     * <p>
+     *   When using reloadable message sources, this is the maximum amount of time a newly added message
+     *   might take to be visible (in addition to the reload period of the message source), as reloads are not
+     *   detected. A value of {@code 0} (the default) disables the caching of missing message keys.
+     * </p>
+     * <p>
+     *   Default value is {@link #DEFAULT_MISSING_MESSAGE_CACHE_TTL_MS}.
+     * </p>
+     *
+     * @param missingMessageCacheTTLMs the TTL of missing message keys, in milliseconds.
+     * @since 3.0.12
+     */
+    public final void setMissingMessageCacheTTLMs(final long missingMessageCacheTTLMs) {
+        Validate.isTrue(missingMessageCacheTTLMs >= 0L, "Missing message cache TTL cannot be negative");
+        this.missingMessageCacheTTLMs = missingMessageCacheTTLMs;
+        this.missingMessageCache = null;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the maximum amount of missing message keys (for all locales) that will be remembered.
+     * </p>
+     * <p>
+     *   Default value is {@link #DEFAULT_MISSING_MESSAGE_CACHE_MAX_SIZE}.
+     * </p>
+     *
+     * @return the maximum size of the missing message cache.
+     * @since 3.0.12
+     */
+    public final int getMissingMessageCacheMaxSize() {
+        return this.missingMessageCacheMaxSize;
+    }
+
+
+    /**
+     * <p>
+     *   Sets the maximum amount of missing message keys (for all locales) that will be remembered. When this
+     *   size is reached, expired and then the oldest remembered keys are discarded. A value of {@code 0} disables
+     *   the caching of missing message keys.
+     * </p>
+     * <p>
+     *   Default value is {@link #DEFAULT_MISSING_MESSAGE_CACHE_MAX_SIZE}.
+     * </p>
+     *
+     * @param missingMessageCacheMaxSize the maximum size of the missing message cache.
+     * @since 3.0.12
+     */
+    public final void setMissingMessageCacheMaxSize(final int missingMessageCacheMaxSize) {
+        Validate.isTrue(missingMessageCacheMaxSize >= 0, "Missing message cache max size cannot be negative");
+        this.missingMessageCacheMaxSize = missingMessageCacheMaxSize;
+        this.missingMessageCache = null;
+    }
+
+
+    /**
+     * <p>
+     *   Discards all the message keys remembered as missing at the {@link MessageSource}. Useful after
+     *   programmatically clearing or reloading the message source.
+     * </p>
+     *
+     * @since 3.0.12
+     */
+    public final void clearMissingMessageCache() {
+        final MissingMessageCache cache = this.missingMessageCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+
+    /**
+     * <p>
+     *   Returns the maximum amount of message patterns (for all locales) that will be cached along with their
+     *   parsed {@link java.text.MessageFormat} objects.
+     * </p>
+     * <p>
+     *   Default value is {@link #DEFAULT_MESSAGE_FORMAT_CACHE_MAX_SIZE}.
+     * </p>
+     *
+     * @return the maximum size of the message format cache.
+     * @since 3.0.12
+     */
+    public final int getMessageFormatCacheMaxSize() {
+        return this.messageFormatCacheMaxSize;
+    }
+
+
+    /**
+     * <p>
+     *   Sets the maximum amount of message patterns (for all locales) that will be cached along with their
+     *   parsed {@link java.text.MessageFormat} objects. When this size is reached, expired and then the oldest
+     *   cached patterns are discarded. A value of {@code 0} disables this cache.
+     * </p>
+     * <p>
+     *   When enabled, each message pattern is looked up only once at the {@link MessageSource}. Messages
+     *   without parameters are then returned without any formatting, and messages with parameters are
+     *   formatted with a {@link java.text.MessageFormat} parsed only once. This is equivalent to what
+     *   Spring's {@code AbstractMessageSource} implementations do, unless they are configured to always use
+     *   message formats ({@code alwaysUseMessageFormat}), in which case this cache should not be enabled.
+     *   Parameters that are {@link MessageSourceResolvable} objects are always resolved by the message source.
+     * </p>
+     * <p>
+     *   Default value is {@link #DEFAULT_MESSAGE_FORMAT_CACHE_MAX_SIZE}.
+     * </p>
+     *
+     * @param messageFormatCacheMaxSize the maximum size of the message format cache.
+     * @since 3.0.12
+     */
+    public final void setMessageFormatCacheMaxSize(final int messageFormatCacheMaxSize) {
+        Validate.isTrue(messageFormatCacheMaxSize >= 0, "Message format cache max size cannot be negative");
+        this.messageFormatCacheMaxSize = messageFormatCacheMaxSize;
+        this.messageFormatCache = null;
+    }
+
+
+    /**
+     * <p>
+     *   Returns whether the messages used by each template are prefetched in bulk from the {@link MessageSource}.
+     * </p>
+     * <p>
+     *   Default value is {@code false}.
+     * </p>
+     *
+     * @return whether template messages are prefetched.
+     * @since 3.0.12
+     */
+    public final boolean getPrefetchTemplateMessages() {
+        return this.prefetchTemplateMessages;
+    }
+
+
+    /**
+     * <p>
+     *   Sets whether the messages used by each template should be prefetched in bulk from the
+     *   {@link MessageSource}.
+     * </p>
+     * <p>
+     *   When enabled, the keys of the messages resolved for each template are recorded during its first execution.
+     *   Later executions will resolve all these keys at once for the locale being used (the first time that locale
+     *   is used, and then again every time the TTL established by {@link #setMessageFormatCacheTTLMs(long)}
+     *   expires), and read messages from the resulting snapshot instead of calling the message source for each of
+     *   them. Only messages used without parameters are read from these snapshots, unless the message format
+     *   cache is enabled (see {@link #setMessageFormatCacheMaxSize(int)}), in which case messages with parameters
+     *   are also read from them and formatted in the way explained for that cache. While a snapshot is being
+     *   rebuilt by a template execution, concurrent executions keep using the previous one.
+     * </p>
+     * <p>
+     *   Default value is {@code false}.
+     * </p>
+     *
+     * @param prefetchTemplateMessages whether template messages should be prefetched.
+     * @since 3.0.12
+     */
+    public final void setPrefetchTemplateMessages(final boolean prefetchTemplateMessages) {
+        this.prefetchTemplateMessages = prefetchTemplateMessages;
+        this.templateMessageSnapshots = null;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of milliseconds during which message patterns are cached.
+     * </p>
+     * <p>
+     *   Default value is {@link #DEFAULT_MESSAGE_FORMAT_CACHE_TTL_MS}.
+     * </p>
+     *
+     * @return the TTL of cached message patterns, in milliseconds.
+     * @since 3.0.12
+     */
+    public final long getMessageFormatCacheTTLMs() {
+        return this.messageFormatCacheTTLMs;
+    }
+
+
+    /**
+     * <p>
+     *   Sets the amount of milliseconds during which message patterns are cached. When using reloadable message
+     *   sources, this is the maximum amount of time a modified message might take to be visible (in addition to
+     *   the reload period of the message source). A value of {@code 0} disables this cache.
+     * </p>
+     * <p>
+     *   Default value is {@link #DEFAULT_MESSAGE_FORMAT_CACHE_TTL_MS}.
+     * </p>
+     *
+     * @param messageFormatCacheTTLMs the TTL of cached message patterns, in milliseconds.
+     * @since 3.0.12
+     */
+    public final void setMessageFormatCacheTTLMs(final long messageFormatCacheTTLMs) {
+        Validate.isTrue(messageFormatCacheTTLMs >= 0L, "Message format cache TTL cannot be negative");
+        this.messageFormatCacheTTLMs = messageFormatCacheTTLMs;
+        this.messageFormatCache = null;
+        this.templateMessageSnapshots = null;
+    }
+
+
+    /**
+     * <p>
+     *   Discards all the cached message patterns (including prefetched template messages). Useful after
+     *   programmatically clearing or reloading the message source.
+     * </p>
+     *
+     * @since 3.0.12
+     */
+    public final void clearMessageFormatCache() {
+        final MessageFormatCache cache = this.messageFormatCache;
+        if (cache != null) {
+            cache.clear();
+        }
+        final TemplateMessageSnapshots snapshots = this.templateMessageSnapshots;
+        if (snapshots != null) {
+            snapshots.clear();
+        }
+    }
+
+
+    /*
+     * Returns -1 if nothing should be cached for the message source right now, 0 if it is not an ApplicationContext
+     */
+    private long getMessageSourceStartupDate() {
+        if (this.messageSource instanceof ApplicationContext) {
+            if (this.messageSource instanceof ConfigurableApplicationContext &&
+                    !((ConfigurableApplicationContext) this.messageSource).isActive()) {
+                // Context is being refreshed or has been closed: no caching at all
+                return -1L;
+            }
+            return ((ApplicationContext) this.messageSource).getStartupDate();
+        }
+        return 0L;
+    }
+
+
+    private MissingMessageCache getMissingMessageCache() {
+
+        final long startupDate = getMessageSourceStartupDate();
+        if (startupDate < 0L) {
+            return null;
+        }
+
+        MissingMessageCache cache = this.missingMessageCache;
+        if (cache == null || cache.getStartupDate() != startupDate) {
+            cache = new MissingMessageCache(
+                    this.missingMessageCacheMaxSize, this.missingMessageCacheTTLMs,
+                    startupDate, isUseCodeAsDefaultMessage(this.messageSource));
+            this.missingMessageCache = cache;
+        }
+        return cache;
+
+    }
+
+
+    private MessageFormatCache getMessageFormatCache() {
+
+        if (this.messageFormatCacheMaxSize <= 0 || this.messageFormatCacheTTLMs <= 0L) {
+            return null;
+        }
+
+        final long startupDate = getMessageSourceStartupDate();
+        if (startupDate < 0L) {
+            return null;
+        }
+
+        MessageFormatCache cache = this.messageFormatCache;
+        if (cache == null || cache.getStartupDate() != startupDate) {
+            cache = new MessageFormatCache(this.messageFormatCacheMaxSize, this.messageFormatCacheTTLMs, startupDate);
+            this.messageFormatCache = cache;
+        }
+        return cache;
+
+    }
+
+
+    private TemplateMessageSnapshots getTemplateMessageSnapshots() {
+
+        if (!this.prefetchTemplateMessages || this.messageFormatCacheTTLMs <= 0L) {
+            return null;
+        }
+
+        final long startupDate = getMessageSourceStartupDate();
+        if (startupDate < 0L) {
+            return null;
+        }
+
+        TemplateMessageSnapshots snapshots = this.templateMessageSnapshots;
+        if (snapshots == null || snapshots.getStartupDate() != startupDate) {
+            snapshots = new TemplateMessageSnapshots(this.messageFormatCacheTTLMs, startupDate);
+            this.templateMessageSnapshots = snapshots;
+        }
+        return snapshots;
+
+    }
+
+
+    /*
+     * Message sources configured to use codes as default messages return the code itself for missing messages,
+     * but only when no default message is specified, which is why this needs to be known in advance.
+     */
+    private static boolean isUseCodeAsDefaultMessage(final MessageSource messageSource) {
+        try {
+            return USE_CODE_AS_DEFAULT_MESSAGE_PROBE_KEY.equals(
+                    messageSource.getMessage(USE_CODE_AS_DEFAULT_MESSAGE_PROBE_KEY, null, null, Locale.ROOT));
+        } catch (final RuntimeException e) {
+            return false;
+        }
     }
 
 
@@ -139,10 +539,32 @@ public final String resolveMessage(
                         new Object[]{TemplateEngine.threadIndex(), key, context.getTemplateData().getTemplate(), context.getLocale()});
             }
 
-            try {
-                return this.messageSource.getMessage(key, messageParameters, context.getLocale());
-            } catch (NoSuchMessageException e) {
-                // Try other methods
+            final Locale locale = context.getLocale();
+            final MissingMessageCache missingMessages = getMissingMessageCache();
+
+            if (missingMessages != null) {
+                final String prefetchedMessage = resolvePrefetchedMessage(context, key, messageParameters, locale);
+                if (prefetchedMessage == null) {
+                    if (!missingMessages.isMissing(key, locale)) {
+                        final String message = lookUpMessage(key, messageParameters, locale);
+                        if (message != null) {
+                            return message;
+                        }
+                        missingMessages.markMissing(key, locale);
+                    }
+                } else if (prefetchedMessage != MISSING_MESSAGE) {
+                    return prefetchedMessage;
+                }
+            }
+
+            if (missingMessages == null || missingMessages.isUseCodeAsDefaultMessage()) {
+                // No state can be kept for the message source right now, or it is configured to use the codes of
+                // missing messages as default messages (which will not throw any exceptions, then)
+                try {
+                    return this.messageSource.getMessage(key, messageParameters, locale);
+                } catch (NoSuchMessageException e) {
+                    // Try other methods
+                }
             }
 
         }
@@ -170,6 +592,123 @@ public final String resolveMessage(
 
 
 
+    /*
+     * Returns MISSING_MESSAGE if the message is known to be missing, null if it has not been prefetched
+     */
+    private String resolvePrefetchedMessage(
+            final ITemplateContext context, final String key, final Object[] messageParameters, final Locale locale) {
+
+        final TemplateMessageSnapshots snapshots = getTemplateMessageSnapshots();
+        if (snapshots == null || containsResolvable(messageParameters)) {
+            return null;
+        }
+        if (messageParameters != null && messageParameters.length > 0 && this.messageFormatCacheMaxSize <= 0) {
+            // Unless the message format cache is enabled, only the formatting performed by the message source
+            // itself can be trusted for messages with parameters (e.g. the source might always use MessageFormat)
+            return null;
+        }
+
+        final TemplateMessageSnapshots.TemplateMessages templateMessages =
+                snapshots.forTemplate(context.getTemplateData().getTemplate());
+        if (templateMessages == null) {
+            return null;
+        }
+
+        TemplateMessageSnapshots.Snapshot snapshot = templateMessages.getSnapshot(locale);
+        if (templateMessages.needsSnapshot(snapshot, context) && templateMessages.startSnapshot(locale)) {
+            // Only one thread rebuilds the snapshot: the rest keep using the previous one (if any) in the meantime
+            try {
+                snapshot = templateMessages.putSnapshot(locale, prefetchMessages(templateMessages.getKeys(), locale));
+            } finally {
+                templateMessages.finishSnapshot(locale);
+            }
+        }
+
+        final MessageFormatCache.CachedMessage cachedMessage = (snapshot == null ? null : snapshot.get(key));
+        if (cachedMessage == null) {
+            templateMessages.addKey(key, context);
+            return null;
+        }
+        if (cachedMessage == MISSING_CACHED_MESSAGE) {
+            return MISSING_MESSAGE;
+        }
+        try {
+            return cachedMessage.format(messageParameters);
+        } catch (final IllegalArgumentException e) {
+            // Invalid message pattern: let the message source handle it in its own way
+            return null;
+        }
+
+    }
+
+
+    private Map<String,MessageFormatCache.CachedMessage> prefetchMessages(final Iterable<String> keys, final Locale locale) {
+        final Map<String,MessageFormatCache.CachedMessage> messages =
+                new HashMap<String, MessageFormatCache.CachedMessage>(64);
+        for (final String key : keys) {
+            // Without parameters, the message source returns the message pattern itself
+            final String pattern = this.messageSource.getMessage(key, null, MISSING_MESSAGE, locale);
+            messages.put(key,
+                    (isMissingMessage(pattern)?
+                            MISSING_CACHED_MESSAGE : new MessageFormatCache.CachedMessage(pattern, locale, Long.MAX_VALUE)));
+        }
+        return Collections.unmodifiableMap(messages);
+    }
+
+
+    /*
+     * Returns null if the message is not found at the message source
+     */
+    private String lookUpMessage(final String key, final Object[] messageParameters, final Locale locale) {
+
+        final MessageFormatCache messageFormats = getMessageFormatCache();
+        if (messageFormats != null && !containsResolvable(messageParameters)) {
+
+            MessageFormatCache.CachedMessage cachedMessage = messageFormats.get(key, locale);
+            if (cachedMessage == null) {
+                // Without parameters, the message source returns the message pattern itself
+                final String pattern = this.messageSource.getMessage(key, null, MISSING_MESSAGE, locale);
+                if (isMissingMessage(pattern)) {
+                    return null;
+                }
+                cachedMessage = messageFormats.put(key, locale, pattern);
+            }
+            try {
+                return cachedMessage.format(messageParameters);
+            } catch (final IllegalArgumentException e) {
+                // Invalid message pattern: let the message source handle it in its own way
+            }
+
+        }
+
+        // Specifying a default message avoids the creation of a NoSuchMessageException (which is expensive)
+        // for every message only resolvable by means of origin-based resolution
+        final String message = this.messageSource.getMessage(key, messageParameters, MISSING_MESSAGE, locale);
+        return (isMissingMessage(message) ? null : message);
+
+    }
+
+
+    private static boolean isMissingMessage(final String message) {
+        // The default message could have been returned formatted by MessageFormat, i.e. equal but not the same
+        return message == MISSING_MESSAGE || MISSING_MESSAGE.equals(message);
+    }
+
+
+    private static boolean containsResolvable(final Object[] messageParameters) {
+        if (messageParameters != null) {
+            for (final Object messageParameter : messageParameters) {
+                if (messageParameter instanceof MessageSourceResolvable) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+
+
+
     public String createAbsentMessageRepresentation(
             final ITemplateContext context, final Class<?> origin, final String key, final Object[] messageParameters) {
         return this.standardMessageResolver.createAbsentMessageRepresentation(context, origin, key, messageParameters);
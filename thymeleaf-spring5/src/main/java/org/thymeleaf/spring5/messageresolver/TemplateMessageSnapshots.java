@@ -0,0 +1,203 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.messageresolver;
+
+import java.lang.ref.WeakReference;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.thymeleaf.context.ITemplateContext;
+
+/**
+ * <p>
+ *   Per-template snapshots of messages, used by {@link SpringMessageResolver} for prefetching in bulk all the
+ *   messages a template is known to use.
+ * </p>
+ * <p>
+ *   For each template, a manifest of the message keys resolved while executing it is kept. Once a template
+ *   execution finds a manifest built by previous executions, all of its keys are resolved for the locale being
+ *   used and put into an immutable snapshot, from which messages will be read until the snapshot expires (or
+ *   new keys are added to the manifest, in which case a new snapshot will be created by the next execution).
+ *   Snapshots are never created by the same template execution that added keys to the manifest, so that
+ *   keys are learned in bulk during the first execution of each template. Only one execution at a time can
+ *   rebuild the snapshot for a template and locale: concurrent executions keep reading from the previous
+ *   (maybe expired) snapshot in the meantime.
+ * </p>
+ * <p>
+ *   Instances are created for a specific state of the message source, of which they keep the startup date
+ *   if it is an {@code ApplicationContext}, so that snapshots can be discarded once the context is refreshed.
+ * </p>
+ * <p>
+ *   Objects of this class are thread-safe.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+final class TemplateMessageSnapshots {
+
+    // Limits for avoiding unbounded growth (e.g. templates specified as strings, or dynamically-built keys)
+    private static final int MAX_TEMPLATES = 1000;
+    private static final int MAX_KEYS_PER_TEMPLATE = 500;
+
+    private final long ttlMs;
+    private final long startupDate;
+    private final ConcurrentHashMap<String,TemplateMessages> messagesByTemplate =
+            new ConcurrentHashMap<String, TemplateMessages>(32);
+
+
+
+    TemplateMessageSnapshots(final long ttlMs, final long startupDate) {
+        super();
+        this.ttlMs = ttlMs;
+        this.startupDate = startupDate;
+    }
+
+
+
+    long getStartupDate() {
+        return this.startupDate;
+    }
+
+
+    /*
+     * Returns null if no more templates can be tracked
+     */
+    TemplateMessages forTemplate(final String template) {
+        TemplateMessages templateMessages = this.messagesByTemplate.get(template);
+        if (templateMessages == null && this.messagesByTemplate.size() < MAX_TEMPLATES) {
+            final TemplateMessages newTemplateMessages = new TemplateMessages(this.ttlMs);
+            templateMessages = this.messagesByTemplate.putIfAbsent(template, newTemplateMessages);
+            if (templateMessages == null) {
+                templateMessages = newTemplateMessages;
+            }
+        }
+        return templateMessages;
+    }
+
+
+    void clear() {
+        this.messagesByTemplate.clear();
+    }
+
+
+
+
+    static final class TemplateMessages {
+
+        private final long ttlMs;
+        private final Set<String> keys = ConcurrentHashMap.newKeySet();
+        private final ConcurrentHashMap<Locale,Snapshot> snapshotsByLocale = new ConcurrentHashMap<Locale, Snapshot>(4);
+        private final Set<Locale> snapshotsBeingBuilt = ConcurrentHashMap.newKeySet();
+        private volatile WeakReference<ITemplateContext> learningContext = null;
+
+
+        TemplateMessages(final long ttlMs) {
+            super();
+            this.ttlMs = ttlMs;
+        }
+
+
+        /*
+         * Returns null if the snapshot for the locale does not exist. Note the returned snapshot might have expired
+         */
+        Snapshot getSnapshot(final Locale locale) {
+            return this.snapshotsByLocale.get(locale);
+        }
+
+
+        boolean needsSnapshot(final Snapshot snapshot, final ITemplateContext context) {
+            final int keyCount = this.keys.size();
+            if (keyCount == 0 ||
+                    (snapshot != null && snapshot.keyCount >= keyCount &&
+                            snapshot.expiration >= System.currentTimeMillis())) {
+                return false;
+            }
+            final WeakReference<ITemplateContext> learning = this.learningContext;
+            return (learning == null || learning.get() != context);
+        }
+
+
+        /*
+         * Returns true if the caller is now in charge of building the snapshot for the locale (and must then call
+         * finishSnapshot), false if another thread is already building it
+         */
+        boolean startSnapshot(final Locale locale) {
+            return this.snapshotsBeingBuilt.add(locale);
+        }
+
+
+        void finishSnapshot(final Locale locale) {
+            this.snapshotsBeingBuilt.remove(locale);
+        }
+
+
+        Set<String> getKeys() {
+            return this.keys;
+        }
+
+
+        Snapshot putSnapshot(final Locale locale, final Map<String,MessageFormatCache.CachedMessage> messages) {
+            final Snapshot snapshot =
+                    new Snapshot(messages, messages.size(), System.currentTimeMillis() + this.ttlMs);
+            this.snapshotsByLocale.put(locale, snapshot);
+            return snapshot;
+        }
+
+
+        void addKey(final String key, final ITemplateContext context) {
+            if (this.keys.size() < MAX_KEYS_PER_TEMPLATE && this.keys.add(key)) {
+                final WeakReference<ITemplateContext> learning = this.learningContext;
+                if (learning == null || learning.get() != context) {
+                    this.learningContext = new WeakReference<ITemplateContext>(context);
+                }
+            }
+        }
+
+    }
+
+
+
+
+    static final class Snapshot {
+
+        private final Map<String,MessageFormatCache.CachedMessage> messages;
+        private final int keyCount;
+        private final long expiration;
+
+        Snapshot(final Map<String,MessageFormatCache.CachedMessage> messages, final int keyCount, final long expiration) {
+            super();
+            this.messages = messages;
+            this.keyCount = keyCount;
+            this.expiration = expiration;
+        }
+
+        MessageFormatCache.CachedMessage get(final String key) {
+            return this.messages.get(key);
+        }
+
+    }
+
+
+}
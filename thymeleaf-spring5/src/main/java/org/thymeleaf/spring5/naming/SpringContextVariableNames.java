@@ -41,6 +41,11 @@ public final class SpringContextVariableNames {
 
     public static final String SPRING_BOUND_OBJECT_EXPRESSION = "springBoundObjectExpression";
 
+    /**
+     * @since 3.0.12
+     */
+    public static final String SPRING_FORM_RENDER_PLAN = "springFormRenderPlan";
+
 
     
     private SpringContextVariableNames() {
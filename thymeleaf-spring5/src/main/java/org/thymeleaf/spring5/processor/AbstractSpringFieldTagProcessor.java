@@ -31,9 +31,14 @@
 import org.thymeleaf.processor.element.IElementTagStructureHandler;
 import org.thymeleaf.spring5.context.IThymeleafBindStatus;
 import org.thymeleaf.spring5.naming.SpringContextVariableNames;
+import org.thymeleaf.spring5.util.FieldIdentifiers;
 import org.thymeleaf.spring5.util.FieldUtils;
+import org.thymeleaf.spring5.util.FormRenderPlan;
+import org.thymeleaf.spring5.util.SpringSelectedValueComparator;
+import org.thymeleaf.spring5.util.SpringSelectedValueIndex;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.util.Validate;
+import org.unbescape.html.HtmlEscape;
 
 /**
  * Binds an input property with the value in the form's backing bean.
@@ -208,18 +213,53 @@ protected final String computeId(
             final ITemplateContext context,
             final IProcessableElementTag tag,
             final String name, final boolean sequence) {
+        return computeId(context, tag, FieldIdentifiers.forName(name), sequence);
+    }
+
+
+    // This method is designed to be called from the diverse subclasses
+    protected final String computeId(
+            final ITemplateContext context,
+            final IProcessableElementTag tag,
+            final FieldIdentifiers fieldIdentifiers, final boolean sequence) {
 
-        String id = tag.getAttributeValue(this.idAttributeDefinition.getAttributeName());
+        final String id = tag.getAttributeValue(this.idAttributeDefinition.getAttributeName());
         if (!org.thymeleaf.util.StringUtils.isEmptyOrWhitespace(id)) {
             return (StringUtils.hasText(id) ? id : null);
         }
 
-        id = FieldUtils.idFromName(name);
         if (sequence) {
-            final Integer count = context.getIdentifierSequences().getAndIncrementIDSeq(id);
-            return id + count.toString();
+            // Sequences are shared with #ids, so they need to be kept at the context's identifier sequences
+            final Integer count = context.getIdentifierSequences().getAndIncrementIDSeq(fieldIdentifiers.getId());
+            return fieldIdentifiers.getId(count.intValue());
+        }
+        return fieldIdentifiers.getId();
+
+    }
+
+
+
+
+    // This method is designed to be called from the diverse subclasses
+    protected final boolean isSelected(
+            final ITemplateContext context, final IThymeleafBindStatus bindStatus, final String value) {
+
+        final String candidateValue = HtmlEscape.unescapeHtml(value);
+
+        // If we are inside a <select>, the index for its field will have already been created by the select itself
+        final SpringSelectedValueIndex selectIndex =
+                (SpringSelectedValueIndex) context.getVariable(SpringSelectFieldTagProcessor.OPTION_IN_SELECT_SELECTED_VALUE_INDEX);
+        if (selectIndex != null && selectIndex.isFor(bindStatus)) {
+            return selectIndex.isSelected(candidateValue);
         }
-        return id;
+
+        // Groups of checkboxes and radio buttons are siblings, so their indexes have to be kept at the form level
+        final FormRenderPlan formRenderPlan = FormRenderPlan.getFormRenderPlan(context);
+        if (formRenderPlan != null) {
+            return formRenderPlan.getSelectedValueIndex(bindStatus).isSelected(candidateValue);
+        }
+
+        return SpringSelectedValueComparator.isSelected(bindStatus, candidateValue);
 
     }
 
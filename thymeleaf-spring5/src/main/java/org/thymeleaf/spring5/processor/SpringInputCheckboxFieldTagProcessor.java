@@ -22,7 +22,6 @@
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-import org.springframework.web.bind.WebDataBinder;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.engine.AttributeName;
 import org.thymeleaf.exceptions.TemplateProcessingException;
@@ -35,9 +34,8 @@
 import org.thymeleaf.spring5.context.IThymeleafBindStatus;
 import org.thymeleaf.spring5.dialect.SpringStandardDialect;
 import org.thymeleaf.spring5.requestdata.RequestDataValueProcessorUtils;
-import org.thymeleaf.spring5.util.SpringSelectedValueComparator;
+import org.thymeleaf.spring5.util.FieldIdentifiers;
 import org.thymeleaf.standard.util.StandardProcessorUtils;
-import org.unbescape.html.HtmlEscape;
 
 
 /**
@@ -80,7 +78,8 @@ protected void doProcess(final ITemplateContext context,
         String name = bindStatus.getExpression();
         name = (name == null? "" : name);
 
-        final String id = computeId(context, tag, name, true);
+        final FieldIdentifiers fieldIdentifiers = FieldIdentifiers.forName(name);
+        final String id = computeId(context, tag, fieldIdentifiers, true);
 
         String value = null;
         boolean checked = false;
@@ -106,7 +105,7 @@ protected void doProcess(final ITemplateContext context,
                         "when binding to non-boolean values");
             }
 
-            checked = SpringSelectedValueComparator.isSelected(bindStatus, HtmlEscape.unescapeHtml(value));
+            checked = isSelected(context, bindStatus, value);
 
         }
 
@@ -134,7 +133,7 @@ protected void doProcess(final ITemplateContext context,
 
             final IModel hiddenTagModel = modelFactory.createModel();
 
-            final String hiddenName = WebDataBinder.DEFAULT_FIELD_MARKER_PREFIX + name;
+            final String hiddenName = fieldIdentifiers.getMarkerName();
             final String hiddenValue = "on";
 
             final Map<String,String> hiddenAttributes = new LinkedHashMap<String,String>(4,1.0f);
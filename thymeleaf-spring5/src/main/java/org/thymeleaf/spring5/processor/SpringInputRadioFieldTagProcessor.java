@@ -26,9 +26,7 @@
 import org.thymeleaf.processor.element.IElementTagStructureHandler;
 import org.thymeleaf.spring5.context.IThymeleafBindStatus;
 import org.thymeleaf.spring5.requestdata.RequestDataValueProcessorUtils;
-import org.thymeleaf.spring5.util.SpringSelectedValueComparator;
 import org.thymeleaf.standard.util.StandardProcessorUtils;
-import org.unbescape.html.HtmlEscape;
 
 
 /**
@@ -71,7 +69,7 @@ protected void doProcess(final ITemplateContext context,
         }
 
         final boolean checked =
-                SpringSelectedValueComparator.isSelected(bindStatus, HtmlEscape.unescapeHtml(value));
+                isSelected(context, bindStatus, value);
 
 
         StandardProcessorUtils.setAttribute(structureHandler, this.idAttributeDefinition, ID_ATTR_NAME, id); // No need to escape: this comes from an existing 'id' or from a token
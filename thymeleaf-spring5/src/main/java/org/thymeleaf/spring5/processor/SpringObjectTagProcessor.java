@@ -19,7 +19,7 @@
  */
 package org.thymeleaf.spring5.processor;
 
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 import org.thymeleaf.context.ITemplateContext;
@@ -27,6 +27,7 @@
 import org.thymeleaf.exceptions.TemplateProcessingException;
 import org.thymeleaf.model.IProcessableElementTag;
 import org.thymeleaf.spring5.naming.SpringContextVariableNames;
+import org.thymeleaf.spring5.util.FormRenderPlan;
 import org.thymeleaf.standard.expression.IStandardExpression;
 import org.thymeleaf.standard.expression.VariableExpression;
 import org.thymeleaf.standard.processor.AbstractStandardTargetSelectionTagProcessor;
@@ -86,8 +87,17 @@ protected Map<String, Object> computeAdditionalLocalVariables(
             final AttributeName attributeName, final String attributeValue,
             final IStandardExpression expression) {
 
+        final Map<String,Object> additionalLocalVariables = new HashMap<String, Object>(3, 1.0f);
         // We set the (parsed) expression itself as a local variable because we might use it at the expression evaluator
-        return Collections.singletonMap(SpringContextVariableNames.SPRING_BOUND_OBJECT_EXPRESSION, (Object)expression);
+        additionalLocalVariables.put(SpringContextVariableNames.SPRING_BOUND_OBJECT_EXPRESSION, expression);
+        // Form-level state, computed once here so that it is not looked up again by each of the fields in the form.
+        // Only forms get a render plan: for any other elements (e.g. nested objects inside a form) we just make
+        // sure the plan of an enclosing form is not used, as it refers to a different bound object.
+        additionalLocalVariables.put(
+                SpringContextVariableNames.SPRING_FORM_RENDER_PLAN,
+                ("form".equalsIgnoreCase(tag.getElementCompleteName())?
+                        FormRenderPlan.forForm(context, (VariableExpression) expression) : null));
+        return additionalLocalVariables;
         
     }
 
@@ -26,9 +26,7 @@
 import org.thymeleaf.processor.element.IElementTagStructureHandler;
 import org.thymeleaf.spring5.context.IThymeleafBindStatus;
 import org.thymeleaf.spring5.requestdata.RequestDataValueProcessorUtils;
-import org.thymeleaf.spring5.util.SpringSelectedValueComparator;
 import org.thymeleaf.standard.util.StandardProcessorUtils;
-import org.unbescape.html.HtmlEscape;
 
 
 /**
@@ -65,7 +63,7 @@ protected void doProcess(final ITemplateContext context,
         }
 
         final boolean selected =
-                SpringSelectedValueComparator.isSelected(bindStatus, HtmlEscape.unescapeHtml(value));
+                isSelected(context, bindStatus, value);
 
         StandardProcessorUtils.setAttribute(
                 structureHandler,
@@ -22,7 +22,6 @@
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-import org.springframework.web.bind.WebDataBinder;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.engine.AttributeName;
 import org.thymeleaf.model.AttributeValueQuotes;
@@ -33,6 +32,8 @@
 import org.thymeleaf.processor.element.IElementTagStructureHandler;
 import org.thymeleaf.spring5.context.IThymeleafBindStatus;
 import org.thymeleaf.spring5.requestdata.RequestDataValueProcessorUtils;
+import org.thymeleaf.spring5.util.FieldIdentifiers;
+import org.thymeleaf.spring5.util.SpringSelectedValueIndex;
 import org.thymeleaf.standard.util.StandardProcessorUtils;
 
 
@@ -48,6 +49,7 @@ public final class SpringSelectFieldTagProcessor extends AbstractSpringFieldTagP
 
     static final String OPTION_IN_SELECT_ATTR_NAME = "%%OPTION_IN_SELECT_ATTR_NAME%%";
     static final String OPTION_IN_SELECT_ATTR_VALUE = "%%OPTION_IN_SELECT_ATTR_VALUE%%";
+    static final String OPTION_IN_SELECT_SELECTED_VALUE_INDEX = "%%OPTION_IN_SELECT_SELECTED_VALUE_INDEX%%";
 
 
 
@@ -66,7 +68,8 @@ protected void doProcess(final ITemplateContext context,
         String name = bindStatus.getExpression();
         name = (name == null? "" : name);
 
-        final String id = computeId(context, tag, name, false);
+        final FieldIdentifiers fieldIdentifiers = FieldIdentifiers.forName(name);
+        final String id = computeId(context, tag, fieldIdentifiers, false);
 
         final boolean multiple = tag.hasAttribute(this.multipleAttributeDefinition.getAttributeName());
 
@@ -75,6 +78,10 @@ protected void doProcess(final ITemplateContext context,
 
         structureHandler.setLocalVariable(OPTION_IN_SELECT_ATTR_NAME, attributeName);
         structureHandler.setLocalVariable(OPTION_IN_SELECT_ATTR_VALUE, attributeValue);
+        // Computed once for the whole select so that checking each of its options does not require iterating
+        // the selected values again
+        structureHandler.setLocalVariable(
+                OPTION_IN_SELECT_SELECTED_VALUE_INDEX, SpringSelectedValueIndex.forBindStatus(bindStatus));
 
         if (multiple && !isDisabled(tag)) {
 
@@ -82,7 +89,7 @@ protected void doProcess(final ITemplateContext context,
 
             final IModel hiddenMethodElementModel = modelFactory.createModel();
 
-            final String hiddenName = WebDataBinder.DEFAULT_FIELD_MARKER_PREFIX + name;
+            final String hiddenName = fieldIdentifiers.getMarkerName();
             final String type = "hidden";
             final String value =
                     RequestDataValueProcessorUtils.processFormFieldValue(context, hiddenName, "1", type);
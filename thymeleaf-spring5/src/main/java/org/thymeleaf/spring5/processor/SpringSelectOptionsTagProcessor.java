@@ -0,0 +1,408 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.processor;
+
+import java.beans.PropertyEditor;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.engine.AttributeNames;
+import org.thymeleaf.engine.EngineEventUtils;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.model.ICloseElementTag;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelFactory;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.ITemplateEvent;
+import org.thymeleaf.processor.element.AbstractAttributeModelProcessor;
+import org.thymeleaf.processor.element.IElementModelStructureHandler;
+import org.thymeleaf.spring5.context.IThymeleafBindStatus;
+import org.thymeleaf.spring5.requestdata.RequestDataValueProcessorUtils;
+import org.thymeleaf.spring5.util.FieldUtils;
+import org.thymeleaf.spring5.util.ImmutableOptionItems;
+import org.thymeleaf.spring5.util.SpringSelectedValueIndex;
+import org.thymeleaf.spring5.util.SpringValueFormatter;
+import org.thymeleaf.standard.expression.IStandardExpression;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.unbescape.html.HtmlEscape;
+
+/**
+ * <p>
+ *   Generates all the {@code <option>}s of a {@code <select th:field="...">} in a single batch from a collection
+ *   of items, in a way similar to Spring's {@code <form:options>} JSP tag. Usage:
+ * </p>
+ * <pre><code>
+ *   &lt;select th:field="*{country}" th:options="${countries}" th:options-value="code" th:options-label="name"&gt;
+ *     &lt;option value=""&gt;-- Choose --&lt;/option&gt;
+ *   &lt;/select&gt;
+ * </code></pre>
+ * <p>
+ *   Items can be a collection, an array or a map, and generated options are appended to any already
+ *   existing in the body of the {@code <select>}:
+ * </p>
+ * <ul>
+ *   <li>{@code th:options-value} and {@code th:options-label} are the (optional) names of the item properties to
+ *       be used as value and label for each option. If not specified, the item itself will be used for both
+ *       (or the enum constant name for the value, if items are enums).</li>
+ *   <li>For maps, keys are used for values and map values for labels (properties, if specified, are applied on
+ *       the map keys and values, respectively).</li>
+ * </ul>
+ * <p>
+ *   The result is equivalent to iterating the items with {@code th:each} on an {@code <option>} with
+ *   {@code th:value} and {@code th:text} attributes, but avoids executing the {@code th:field} machinery
+ *   for each option: values and labels are escaped in a single pass, selection is checked by means of
+ *   a {@link SpringSelectedValueIndex} and the markup for all options is output as a single text event. If items
+ *   are wrapped in an {@link ImmutableOptionItems} object, escaped values and labels are computed only once and
+ *   reused across template executions (unless a property editor registered for the bound field applies to
+ *   any of them, in which case they are computed for each execution).
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+public final class SpringSelectOptionsTagProcessor extends AbstractAttributeModelProcessor {
+
+    // Must execute before th:field, as model processors cannot execute after the body of an element has been
+    // modified (which th:field does for 'multiple' selects)
+    public static final int ATTR_PRECEDENCE = 1650;
+    public static final String ATTR_NAME = "options";
+    public static final String VALUE_ATTR_NAME = "options-value";
+    public static final String LABEL_ATTR_NAME = "options-label";
+
+    private static final String SELECT_TAG_NAME = "select";
+    private static final String OPTION_TYPE = "option";
+
+    private final AttributeName fieldAttributeName;
+    private final AttributeName valueAttributeName;
+    private final AttributeName labelAttributeName;
+
+    // Escaped option items for immutable items, by value/label property specification. Soft references are used
+    // so that this never prevents the (application-managed) immutable items from being garbage collected.
+    private final ConcurrentReferenceHashMap<ImmutableOptionItems, ConcurrentHashMap<String,CachedOptionItems>> immutableOptionItems =
+            new ConcurrentReferenceHashMap<ImmutableOptionItems, ConcurrentHashMap<String,CachedOptionItems>>(16);
+
+
+
+    public SpringSelectOptionsTagProcessor(final String dialectPrefix) {
+        super(TemplateMode.HTML, dialectPrefix, SELECT_TAG_NAME, false, ATTR_NAME, true, ATTR_PRECEDENCE, true);
+        this.fieldAttributeName = AttributeNames.forHTMLName(dialectPrefix, AbstractSpringFieldTagProcessor.ATTR_NAME);
+        this.valueAttributeName = AttributeNames.forHTMLName(dialectPrefix, VALUE_ATTR_NAME);
+        this.labelAttributeName = AttributeNames.forHTMLName(dialectPrefix, LABEL_ATTR_NAME);
+    }
+
+
+
+
+    @Override
+    protected void doProcess(
+            final ITemplateContext context, final IModel model,
+            final AttributeName attributeName, final String attributeValue,
+            final IElementModelStructureHandler structureHandler) {
+
+        final int modelSize = model.size();
+        final ITemplateEvent firstEvent = model.get(0);
+        if (!(firstEvent instanceof IOpenElementTag) || !(model.get(modelSize - 1) instanceof ICloseElementTag)) {
+            throw new TemplateProcessingException(
+                    "Cannot apply \"" + attributeName + "\": \"select\" tag must have a body");
+        }
+
+        IOpenElementTag selectTag = (IOpenElementTag) firstEvent;
+
+        // th:field has not been executed yet, so we obtain the bind status ourselves (the request context will
+        // return the same one to th:field later)
+        final String fieldAttributeValue = selectTag.getAttributeValue(this.fieldAttributeName);
+        if (fieldAttributeValue == null) {
+            throw new TemplateProcessingException(
+                    "Cannot apply \"" + attributeName + "\": this attribute requires the existence of a \"" +
+                    this.fieldAttributeName + "\" attribute in the same \"select\" tag.");
+        }
+        final IThymeleafBindStatus bindStatus = FieldUtils.getBindStatus(context, fieldAttributeValue);
+        if (bindStatus == null) {
+            throw new TemplateProcessingException(
+                    "Cannot apply \"" + attributeName + "\": no associated BindStatus could be found for " +
+                    "\"" + fieldAttributeValue + "\"");
+        }
+
+        final String valueProperty = selectTag.getAttributeValue(this.valueAttributeName);
+        final String labelProperty = selectTag.getAttributeValue(this.labelAttributeName);
+
+        final IStandardExpression expression =
+                EngineEventUtils.computeAttributeExpression(context, selectTag, attributeName, attributeValue);
+        final Object items = expression.execute(context);
+
+        final IModelFactory modelFactory = context.getModelFactory();
+        if (valueProperty != null || labelProperty != null) {
+            selectTag = modelFactory.removeAttribute(selectTag, this.valueAttributeName);
+            selectTag = modelFactory.removeAttribute(selectTag, this.labelAttributeName);
+            model.replace(0, selectTag);
+        }
+
+        final OptionItem[] optionItems;
+        if (items instanceof ImmutableOptionItems) {
+            optionItems = getImmutableOptionItems((ImmutableOptionItems) items, valueProperty, labelProperty, bindStatus);
+        } else {
+            optionItems = computeOptionItems(items, valueProperty, labelProperty, bindStatus, null);
+        }
+
+        if (optionItems.length == 0) {
+            return;
+        }
+
+        final SpringSelectedValueIndex index = SpringSelectedValueIndex.forBindStatus(bindStatus);
+
+        String name = bindStatus.getExpression();
+        name = (name == null? "" : name);
+
+        final StringBuilder strBuilder = new StringBuilder(optionItems.length * 48);
+        for (final OptionItem optionItem : optionItems) {
+            strBuilder.append("<option value=\"");
+            strBuilder.append(
+                    RequestDataValueProcessorUtils.processFormFieldValue(context, name, optionItem.escapedValue, OPTION_TYPE));
+            strBuilder.append('"');
+            if (index.isSelected(optionItem.value)) {
+                strBuilder.append(" selected=\"selected\"");
+            }
+            strBuilder.append('>');
+            strBuilder.append(optionItem.escapedLabel);
+            strBuilder.append("</option>");
+        }
+
+        model.insert(modelSize - 1, modelFactory.createText(strBuilder));
+
+    }
+
+
+
+
+    private OptionItem[] getImmutableOptionItems(
+            final ImmutableOptionItems items, final String valueProperty, final String labelProperty,
+            final IThymeleafBindStatus bindStatus) {
+
+        ConcurrentHashMap<String,CachedOptionItems> optionItemsBySpec = this.immutableOptionItems.get(items);
+        if (optionItemsBySpec == null) {
+            final ConcurrentHashMap<String,CachedOptionItems> newOptionItemsBySpec =
+                    new ConcurrentHashMap<String, CachedOptionItems>(2);
+            optionItemsBySpec = this.immutableOptionItems.putIfAbsent(items, newOptionItemsBySpec);
+            if (optionItemsBySpec == null) {
+                optionItemsBySpec = newOptionItemsBySpec;
+            }
+        }
+
+        // Property names cannot contain '\n', so this is a valid separator
+        final String spec = (valueProperty == null? "" : valueProperty) + '\n' + (labelProperty == null? "" : labelProperty);
+        CachedOptionItems cachedOptionItems = optionItemsBySpec.get(spec);
+        if (cachedOptionItems == null) {
+            // Cached items are computed without property editors, recording the classes they could have been applied to
+            final Set<Class<?>> editableClasses = new LinkedHashSet<Class<?>>(4);
+            final OptionItem[] optionItems = computeOptionItems(items, valueProperty, labelProperty, null, editableClasses);
+            cachedOptionItems =
+                    new CachedOptionItems(optionItems, editableClasses.toArray(new Class<?>[editableClasses.size()]));
+            optionItemsBySpec.put(spec, cachedOptionItems);
+        }
+
+        // Property editors depend on the bound field (and are not thread-safe), so if any applies to these items
+        // their display strings must be computed for this execution
+        for (final Class<?> editableClass : cachedOptionItems.editableClasses) {
+            if (bindStatus.findEditor(editableClass) != null) {
+                return computeOptionItems(items, valueProperty, labelProperty, bindStatus, null);
+            }
+        }
+        return cachedOptionItems.optionItems;
+
+    }
+
+
+
+
+    /*
+     * Values and labels are computed in the same way as Spring's OptionWriter (used by <form:options>) does,
+     * applying the property editor registered in the bind status for their class, if any. If a set of editable
+     * classes is specified, the classes of the values and labels that a property editor could apply to are added to it.
+     */
+    private static OptionItem[] computeOptionItems(
+            final Object items, final String valueProperty, final String labelProperty,
+            final IThymeleafBindStatus bindStatus, final Set<Class<?>> editableClasses) {
+
+        if (items == null) {
+            return new OptionItem[0];
+        }
+
+        final List<OptionItem> optionItems = new ArrayList<OptionItem>();
+
+        if (items instanceof Map) {
+            for (final Map.Entry<?,?> entry : ((Map<?,?>) items).entrySet()) {
+                optionItems.add(computeMapEntryOptionItem(entry, valueProperty, labelProperty, bindStatus, editableClasses));
+            }
+        } else if (items instanceof Iterable) {
+            for (final Object item : (Iterable<?>) items) {
+                optionItems.add(
+                        (item instanceof Map.Entry && items instanceof ImmutableOptionItems?
+                                computeMapEntryOptionItem((Map.Entry<?,?>) item, valueProperty, labelProperty, bindStatus, editableClasses) :
+                                computeOptionItem(item, valueProperty, labelProperty, bindStatus, editableClasses)));
+            }
+        } else if (items.getClass().isArray()) {
+            final int length = Array.getLength(items);
+            for (int i = 0; i < length; i++) {
+                optionItems.add(
+                        computeOptionItem(Array.get(items, i), valueProperty, labelProperty, bindStatus, editableClasses));
+            }
+        } else {
+            throw new TemplateProcessingException(
+                    "Cannot generate options from an object of class " + items.getClass().getName() + ": " +
+                    "only arrays, collections and maps are supported");
+        }
+
+        return optionItems.toArray(new OptionItem[optionItems.size()]);
+
+    }
+
+
+    private static OptionItem computeOptionItem(
+            final Object item, final String valueProperty, final String labelProperty,
+            final IThymeleafBindStatus bindStatus, final Set<Class<?>> editableClasses) {
+
+        if (item == null && (valueProperty != null || labelProperty != null)) {
+            throw new TemplateProcessingException(
+                    "Cannot apply \"" + (valueProperty != null? VALUE_ATTR_NAME : LABEL_ATTR_NAME) + "\": " +
+                    "items cannot contain null elements when option values or labels are obtained from item properties");
+        }
+
+        final BeanWrapper wrapper =
+                (valueProperty != null || labelProperty != null? PropertyAccessorFactory.forBeanPropertyAccess(item) : null);
+
+        final Object value =
+                (valueProperty != null?
+                        wrapper.getPropertyValue(valueProperty) :
+                        (item instanceof Enum? ((Enum<?>) item).name() : item));
+        final Object label =
+                (labelProperty != null? wrapper.getPropertyValue(labelProperty) : item);
+
+        return createOptionItem(value, label, bindStatus, editableClasses);
+
+    }
+
+
+    private static OptionItem computeMapEntryOptionItem(
+            final Map.Entry<?,?> entry, final String valueProperty, final String labelProperty,
+            final IThymeleafBindStatus bindStatus, final Set<Class<?>> editableClasses) {
+
+        final Object key = entry.getKey();
+        final Object mapValue = entry.getValue();
+
+        final Object value =
+                (valueProperty != null && key != null?
+                        PropertyAccessorFactory.forBeanPropertyAccess(key).getPropertyValue(valueProperty) : key);
+        final Object label =
+                (labelProperty != null && mapValue != null?
+                        PropertyAccessorFactory.forBeanPropertyAccess(mapValue).getPropertyValue(labelProperty) : mapValue);
+
+        return createOptionItem(value, label, bindStatus, editableClasses);
+
+    }
+
+
+    private static OptionItem createOptionItem(
+            final Object value, final Object label,
+            final IThymeleafBindStatus bindStatus, final Set<Class<?>> editableClasses) {
+        if (editableClasses != null) {
+            // Property editors are never applied to String values (see SpringValueFormatter)
+            if (value != null && !(value instanceof String)) {
+                editableClasses.add(value.getClass());
+            }
+            if (label != null && !(label instanceof String)) {
+                editableClasses.add(label.getClass());
+            }
+        }
+        return new OptionItem(
+                getDisplayString(value, bindStatus),
+                getDisplayString(label, bindStatus));
+    }
+
+
+    private static String getDisplayString(final Object value, final IThymeleafBindStatus bindStatus) {
+        final PropertyEditor editor =
+                (value != null && bindStatus != null? bindStatus.findEditor(value.getClass()) : null);
+        return SpringValueFormatter.getDisplayString(value, editor, false);
+    }
+
+
+
+
+    /*
+     * Escapes text for output as part of the markup of the generated options. Besides HTML escaping (in the same
+     * way th:value and th:text do), inlined expression delimiters are neutralised: the generated markup is output as
+     * a text event, and we do not want item values or labels to be processed as inlined expressions.
+     */
+    private static String escape(final String text) {
+        final String escaped = HtmlEscape.escapeHtml4Xml(text);
+        if (escaped.indexOf('[') < 0) {
+            return escaped;
+        }
+        return escaped.replace("[[", "&#91;[").replace("[(", "&#91;(");
+    }
+
+
+
+
+    private static final class OptionItem {
+
+        final String value;
+        final String escapedValue;
+        final String escapedLabel;
+
+        OptionItem(final String value, final String label) {
+            super();
+            this.value = value;
+            this.escapedValue = escape(value);
+            this.escapedLabel = escape(label);
+        }
+
+    }
+
+
+
+
+    private static final class CachedOptionItems {
+
+        final OptionItem[] optionItems;
+        final Class<?>[] editableClasses;
+
+        CachedOptionItems(final OptionItem[] optionItems, final Class<?>[] editableClasses) {
+            super();
+            this.optionItems = optionItems;
+            this.editableClasses = editableClasses;
+        }
+
+    }
+
+
+}
@@ -0,0 +1,87 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.requestdata;
+
+
+/**
+ * <p>
+ *   Interface that can be implemented by Spring {@code RequestDataValueProcessor} implementations (both
+ *   Spring WebMVC and Spring WebFlux) in order to declare which of their operations never modify the values
+ *   they receive, and whether their extra hidden fields can be reused for all the forms in a request.
+ * </p>
+ * <p>
+ *   Thymeleaf will skip calls to the operations declared as identity, which is useful for templates that
+ *   contain large amounts of links and form fields, and will compute extra hidden fields only once per
+ *   request and HTTP method if declared request-constant. Request data value processors not implementing this
+ *   interface are always called (except for Spring Security's CSRF processors, for which this information
+ *   is already known, see {@link RequestDataValueProcessorUtils#getCapabilities(Object)}).
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+public interface IRequestDataValueProcessorCapabilities {
+
+    /**
+     * <p>
+     *   Whether {@code processAction(...)} always returns the action it receives and has no side effects.
+     * </p>
+     *
+     * @return true if calls to {@code processAction(...)} can be skipped.
+     */
+    public boolean isProcessActionIdentity();
+
+    /**
+     * <p>
+     *   Whether {@code processFormFieldValue(...)} always returns the value it receives and has no side effects.
+     * </p>
+     *
+     * @return true if calls to {@code processFormFieldValue(...)} can be skipped.
+     */
+    public boolean isProcessFormFieldValueIdentity();
+
+    /**
+     * <p>
+     *   Whether {@code processUrl(...)} always returns the URL it receives and has no side effects.
+     * </p>
+     *
+     * @return true if calls to {@code processUrl(...)} can be skipped.
+     */
+    public boolean isProcessUrlIdentity();
+
+    /**
+     * <p>
+     *   Whether {@code getExtraHiddenFields(...)} always returns the same fields during a request for forms
+     *   with the same HTTP method, whatever the action specified at the {@code processAction(...)} call
+     *   performed before it.
+     * </p>
+     * <p>
+     *   Processors returning hidden fields that depend on the form action (e.g. per-action state tokens)
+     *   must return false here.
+     * </p>
+     *
+     * @return true if the result of {@code getExtraHiddenFields(...)} can be reused for all forms with
+     *         the same HTTP method in a request.
+     */
+    public boolean isExtraHiddenFieldsRequestConstant();
+
+}
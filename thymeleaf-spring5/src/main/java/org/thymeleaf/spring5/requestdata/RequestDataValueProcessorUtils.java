@@ -24,6 +24,7 @@
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.spring5.context.IThymeleafRequestContext;
 import org.thymeleaf.spring5.context.SpringContextUtils;
+import org.thymeleaf.spring5.util.FormRenderPlan;
 
 
 /**
@@ -39,6 +40,25 @@
  */
 public final class RequestDataValueProcessorUtils {
 
+    /*
+     * Spring Security's CSRF request data value processors do not modify URLs or form field values. Their
+     * processAction(...) methods cannot be skipped, though, as they determine whether the CSRF token will be
+     * returned as an extra hidden field (it is not for GET forms). Apart from that, the CSRF token is the same
+     * for every form in a request, so extra hidden fields can be reused for forms with the same HTTP method.
+     */
+    private static final String SPRING_SECURITY_WEBMVC_CSRF_PROCESSOR_CLASS_NAME =
+            "org.springframework.security.web.servlet.support.csrf.CsrfRequestDataValueProcessor";
+    private static final String SPRING_SECURITY_WEBFLUX_CSRF_PROCESSOR_CLASS_NAME =
+            "org.springframework.security.web.reactive.result.view.CsrfRequestDataValueProcessor";
+
+    private static final IRequestDataValueProcessorCapabilities NO_PROCESSOR_CAPABILITIES =
+            new FixedRequestDataValueProcessorCapabilities(true, true, true, true);
+    private static final IRequestDataValueProcessorCapabilities CSRF_PROCESSOR_CAPABILITIES =
+            new FixedRequestDataValueProcessorCapabilities(false, true, true, true);
+    private static final IRequestDataValueProcessorCapabilities UNKNOWN_PROCESSOR_CAPABILITIES =
+            new FixedRequestDataValueProcessorCapabilities(false, false, false, false);
+
+
 
 
     public static String processAction(
@@ -58,6 +78,12 @@ public static String processAction(
     public static String processFormFieldValue(
             final ITemplateContext context, final String name, final String value, final String type) {
 
+        // Form fields will normally be inside a form with th:object, which already knows the processor
+        final FormRenderPlan formRenderPlan = FormRenderPlan.getFormRenderPlan(context);
+        if (formRenderPlan != null && formRenderPlan.getRequestDataValueProcessor() != null) {
+            return formRenderPlan.getRequestDataValueProcessor().processFormFieldValue(name, value, type);
+        }
+
         final IThymeleafRequestContext thymeleafRequestContext = SpringContextUtils.getRequestContext(context);
         if (thymeleafRequestContext == null) {
             return value;
@@ -96,9 +122,93 @@ public static String processUrl(final ITemplateContext context, final String url
 
 
 
+    /**
+     * <p>
+     *   Determine which operations of a Spring {@code RequestDataValueProcessor} (either WebMVC or WebFlux) are
+     *   known to return the values they receive, so that calls to them can be skipped, and whether its extra
+     *   hidden fields are known to be constant for all forms with the same HTTP method in a request.
+     * </p>
+     * <p>
+     *   A {@code null} processor is identity for every operation. Processors implementing
+     *   {@link IRequestDataValueProcessorCapabilities} declare their own capabilities, and Spring Security's
+     *   CSRF processors are known to be identity for URLs and form field values and to return request-constant
+     *   extra hidden fields. No operations are considered identity, and extra hidden fields are not considered
+     *   request-constant, for any other processors.
+     * </p>
+     *
+     * @param requestDataValueProcessor the Spring request data value processor (might be null).
+     * @return the capabilities of the processor (never null).
+     *
+     * @since 3.0.12
+     */
+    public static IRequestDataValueProcessorCapabilities getCapabilities(final Object requestDataValueProcessor) {
+
+        if (requestDataValueProcessor == null) {
+            return NO_PROCESSOR_CAPABILITIES;
+        }
+        if (requestDataValueProcessor instanceof IRequestDataValueProcessorCapabilities) {
+            return (IRequestDataValueProcessorCapabilities) requestDataValueProcessor;
+        }
+
+        // Exact class names are checked, so that subclasses (which might override any methods) are excluded
+        final String className = requestDataValueProcessor.getClass().getName();
+        if (SPRING_SECURITY_WEBMVC_CSRF_PROCESSOR_CLASS_NAME.equals(className) ||
+                SPRING_SECURITY_WEBFLUX_CSRF_PROCESSOR_CLASS_NAME.equals(className)) {
+            return CSRF_PROCESSOR_CAPABILITIES;
+        }
+
+        return UNKNOWN_PROCESSOR_CAPABILITIES;
+
+    }
+
+
+
+
     private RequestDataValueProcessorUtils() {
 	    super();
     }
 
-	
+
+
+    private static final class FixedRequestDataValueProcessorCapabilities
+            implements IRequestDataValueProcessorCapabilities {
+
+        private final boolean processActionIdentity;
+        private final boolean processFormFieldValueIdentity;
+        private final boolean processUrlIdentity;
+        private final boolean extraHiddenFieldsRequestConstant;
+
+        FixedRequestDataValueProcessorCapabilities(
+                final boolean processActionIdentity, final boolean processFormFieldValueIdentity,
+                final boolean processUrlIdentity, final boolean extraHiddenFieldsRequestConstant) {
+            super();
+            this.processActionIdentity = processActionIdentity;
+            this.processFormFieldValueIdentity = processFormFieldValueIdentity;
+            this.processUrlIdentity = processUrlIdentity;
+            this.extraHiddenFieldsRequestConstant = extraHiddenFieldsRequestConstant;
+        }
+
+        @Override
+        public boolean isProcessActionIdentity() {
+            return this.processActionIdentity;
+        }
+
+        @Override
+        public boolean isProcessFormFieldValueIdentity() {
+            return this.processFormFieldValueIdentity;
+        }
+
+        @Override
+        public boolean isProcessUrlIdentity() {
+            return this.processUrlIdentity;
+        }
+
+        @Override
+        public boolean isExtraHiddenFieldsRequestConstant() {
+            return this.extraHiddenFieldsRequestConstant;
+        }
+
+    }
+
+
 }
@@ -19,15 +19,24 @@
  */
 package org.thymeleaf.spring5.templateresolver;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
 import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.spring5.templateresource.SpringResourceTemplateResource;
 import org.thymeleaf.templateresolver.AbstractConfigurableTemplateResolver;
 import org.thymeleaf.templateresource.ITemplateResource;
+import org.thymeleaf.util.Validate;
 
 /**
  * <p>
@@ -36,6 +45,11 @@
  *   and resolves templates using Spring's Resource Resolution mechanism
  *   (see {@link ApplicationContext#getResource(String)}).
  * </p>
+ * <p>
+ *   When the <em>checkExistence</em> flag is set (e.g. in order to chain several template resolvers), the results
+ *   of checking the existence of template resources can be cached (see {@link #setExistenceCacheTTLMs(long)} and
+ *   {@link #setExistenceCacheWatchFileSystem(boolean)}).
+ * </p>
  *
  * @author Daniel Fern&aacute;ndez
  *
@@ -44,10 +58,13 @@
  */
 public class SpringResourceTemplateResolver
         extends AbstractConfigurableTemplateResolver
-        implements ApplicationContextAware {
+        implements ApplicationContextAware, DisposableBean {
 
 
     private ApplicationContext applicationContext = null;
+    private long existenceCacheTTLMs = 0L;
+    private boolean existenceCacheWatchFileSystem = false;
+    private volatile TemplateResourceExistenceCache existenceCache = null;
 
 
 
@@ -59,6 +76,195 @@ public SpringResourceTemplateResolver() {
 
     public void setApplicationContext(final ApplicationContext applicationContext) throws BeansException {
         this.applicationContext = applicationContext;
+        resetExistenceCache();
+    }
+
+
+
+    /**
+     * <p>
+     *   Returns the amount of milliseconds during which the results of checking the existence of template
+     *   resources are cached.
+     * </p>
+     * <p>
+     *   Default value is {@code 0} (no caching).
+     * </p>
+     *
+     * @return the TTL of existence check results, in milliseconds.
+     *
+     * @since 3.0.12
+     */
+    public final long getExistenceCacheTTLMs() {
+        return this.existenceCacheTTLMs;
+    }
+
+
+    /**
+     * <p>
+     *   Sets the amount of milliseconds during which the results of checking the existence of template
+     *   resources will be cached. Both positive and negative results are cached, so that chains of template
+     *   resolvers with the <em>checkExistence</em> flag set do not need to look templates up again at each
+     *   resolver every time a template is resolved (i.e. every time it is not found at the template cache).
+     * </p>
+     * <p>
+     *   This only has effect when <em>checkExistence</em> is set. A value of {@code 0} disables this cache.
+     * </p>
+     * <p>
+     *   Default value is {@code 0} (no caching).
+     * </p>
+     *
+     * @param existenceCacheTTLMs the TTL of existence check results, in milliseconds.
+     *
+     * @since 3.0.12
+     */
+    public final void setExistenceCacheTTLMs(final long existenceCacheTTLMs) {
+        Validate.isTrue(existenceCacheTTLMs >= 0L, "Existence cache TTL cannot be negative");
+        this.existenceCacheTTLMs = existenceCacheTTLMs;
+        resetExistenceCache();
+    }
+
+
+    /**
+     * <p>
+     *   Returns whether the directories of template resources located in the filesystem are watched for
+     *   changes in order to invalidate cached existence check results.
+     * </p>
+     * <p>
+     *   Default value is {@code false}.
+     * </p>
+     *
+     * @return whether filesystem template directories are watched.
+     *
+     * @since 3.0.12
+     */
+    public final boolean getExistenceCacheWatchFileSystem() {
+        return this.existenceCacheWatchFileSystem;
+    }
+
+
+    /**
+     * <p>
+     *   Sets whether the directories of template resources located in the filesystem should be watched for
+     *   changes (by means of a {@link java.nio.file.WatchService}) in order to invalidate cached existence check
+     *   results. When set, results for these resources will not expire after the configured TTL, and will be
+     *   discarded instead as soon as any changes are notified for their directories (note notification delays
+     *   depend on the platform). Resources not located in the filesystem will still be subject to the TTL.
+     * </p>
+     * <p>
+     *   This only has effect when the existence cache is enabled (see {@link #setExistenceCacheTTLMs(long)}).
+     *   Watching stops when this template resolver is destroyed (see {@link #destroy()}).
+     * </p>
+     * <p>
+     *   Default value is {@code false}.
+     * </p>
+     *
+     * @param existenceCacheWatchFileSystem whether filesystem template directories should be watched.
+     *
+     * @since 3.0.12
+     */
+    public final void setExistenceCacheWatchFileSystem(final boolean existenceCacheWatchFileSystem) {
+        this.existenceCacheWatchFileSystem = existenceCacheWatchFileSystem;
+        resetExistenceCache();
+    }
+
+
+    /**
+     * <p>
+     *   Discards all cached existence check results.
+     * </p>
+     *
+     * @since 3.0.12
+     */
+    public final void clearExistenceCache() {
+        final TemplateResourceExistenceCache cache = getExistenceCache();
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+
+    /**
+     * <p>
+     *   Releases the resources used by the existence cache (i.e. stops watching template directories).
+     * </p>
+     *
+     * @since 3.0.12
+     */
+    public void destroy() {
+        resetExistenceCache();
+    }
+
+
+    private TemplateResourceExistenceCache getExistenceCache() {
+        // Double-checked locking, so that no lock is needed once the cache has been created
+        TemplateResourceExistenceCache cache = this.existenceCache;
+        if (cache == null && this.existenceCacheTTLMs > 0L) {
+            synchronized (this) {
+                cache = this.existenceCache;
+                if (cache == null && this.existenceCacheTTLMs > 0L) {
+                    cache = new TemplateResourceExistenceCache(
+                            this.existenceCacheTTLMs, this.existenceCacheWatchFileSystem);
+                    this.existenceCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+
+    private synchronized void resetExistenceCache() {
+        if (this.existenceCache != null) {
+            this.existenceCache.close();
+            this.existenceCache = null;
+        }
+    }
+
+
+
+    /**
+     * <p>
+     *   Returns the resources of all the templates matching the specified location patterns, resolved by means
+     *   of Spring's {@link ResourcePatternResolver} mechanism (e.g. {@code classpath*:/templates/**}{@code /*.html}).
+     * </p>
+     * <p>
+     *   If no patterns are specified, a pattern will be computed from the <em>prefix</em> and <em>suffix</em>
+     *   configured at this template resolver, matching every template under the prefix.
+     * </p>
+     * <p>
+     *   This is mainly used for pre-warming expression caches at startup
+     *   (see {@link org.thymeleaf.spring5.SpringTemplateEngine#prewarmSpringELExpressions(String...)}).
+     * </p>
+     *
+     * @param locationPatterns the location patterns (might be empty).
+     * @return the matching template resources.
+     * @throws IOException if template resources could not be resolved.
+     *
+     * @since 3.0.12
+     */
+    public Resource[] findTemplateResources(final String... locationPatterns) throws IOException {
+
+        final ResourcePatternResolver resourcePatternResolver =
+                (this.applicationContext != null?
+                        this.applicationContext : new PathMatchingResourcePatternResolver());
+
+        final String[] patterns;
+        if (locationPatterns == null || locationPatterns.length == 0) {
+            final String prefix = getPrefix();
+            final String suffix = getSuffix();
+            patterns = new String[] { (prefix == null? "" : prefix) + "**/*" + (suffix == null? "" : suffix) };
+        } else {
+            patterns = locationPatterns;
+        }
+
+        if (patterns.length == 1) {
+            return resourcePatternResolver.getResources(patterns[0]);
+        }
+        final Set<Resource> resources = new LinkedHashSet<Resource>();
+        for (final String pattern : patterns) {
+            resources.addAll(Arrays.asList(resourcePatternResolver.getResources(pattern)));
+        }
+        return resources.toArray(new Resource[resources.size()]);
+
     }
 
 
@@ -66,7 +272,43 @@ public void setApplicationContext(final ApplicationContext applicationContext) t
     @Override
     protected ITemplateResource computeTemplateResource(
             final IEngineConfiguration configuration, final String ownerTemplate, final String template, final String resourceName, final String characterEncoding, final Map<String, Object> templateResolutionAttributes) {
-        return new SpringResourceTemplateResource(this.applicationContext, resourceName, characterEncoding);
+        if (this.existenceCacheTTLMs <= 0L || !getCheckExistence()) {
+            return new SpringResourceTemplateResource(this.applicationContext, resourceName, characterEncoding);
+        }
+        return new ExistenceCachedTemplateResource(
+                this.applicationContext.getResource(resourceName), characterEncoding,
+                getExistenceCache(), resourceName);
+    }
+
+
+
+
+    private static final class ExistenceCachedTemplateResource extends SpringResourceTemplateResource {
+
+        private final Resource resource;
+        private final TemplateResourceExistenceCache existenceCache;
+        private final String location;
+
+
+        ExistenceCachedTemplateResource(
+                final Resource resource, final String characterEncoding,
+                final TemplateResourceExistenceCache existenceCache, final String location) {
+            super(resource, characterEncoding);
+            this.resource = resource;
+            this.existenceCache = existenceCache;
+            this.location = location;
+        }
+
+
+        @Override
+        public boolean exists() {
+            if (this.existenceCache == null) {
+                // Caching was disabled right after this resource was created
+                return super.exists();
+            }
+            return this.existenceCache.exists(this.location, this.resource);
+        }
+
     }
 
 
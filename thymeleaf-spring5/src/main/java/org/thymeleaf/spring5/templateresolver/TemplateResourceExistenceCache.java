@@ -0,0 +1,311 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.templateresolver;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+
+/**
+ * <p>
+ *   Cache of the results of checking the existence of template resources, used by
+ *   {@link SpringResourceTemplateResolver} when its <em>checkExistence</em> flag is set (e.g. for chaining
+ *   template resolvers), so that resolving a template does not require filesystem or classpath lookups
+ *   every time.
+ * </p>
+ * <p>
+ *   Both positive and negative results are cached, and expire after a configurable amount of time.
+ *   Optionally, resources located in the filesystem can be watched by means of a {@link WatchService}:
+ *   results for these resources do not expire, and are discarded as soon as any changes are detected in their
+ *   directories. Resources not located in the filesystem (e.g. inside .jar files), or for which no existing
+ *   directory can be watched, are always subject to expiration.
+ * </p>
+ * <p>
+ *   The amount of locations kept is bounded: once the maximum is reached, expired entries are pruned in order
+ *   to make room for new locations, which are not cached only if no entries have expired.
+ * </p>
+ * <p>
+ *   Objects of this class are thread-safe.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+final class TemplateResourceExistenceCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TemplateResourceExistenceCache.class);
+
+    // Limit to the amount of locations kept, so that template names built from request data cannot make this grow
+    private static final int MAX_ENTRIES = 10000;
+
+    private final long ttlMs;
+    private final boolean watchFileSystem;
+    private final ConcurrentHashMap<String,Entry> entries = new ConcurrentHashMap<String, Entry>(64);
+    // Earliest time at which pruning the expired entries of a full cache might free any space
+    private volatile long nextPruneTime = 0L;
+
+    private final ConcurrentHashMap<Path,WatchedDirectory> watchedDirectories =
+            new ConcurrentHashMap<Path, WatchedDirectory>(8);
+    private WatchService watchService = null;
+    private boolean closed = false;
+
+
+
+    TemplateResourceExistenceCache(final long ttlMs, final boolean watchFileSystem) {
+        super();
+        this.ttlMs = ttlMs;
+        this.watchFileSystem = watchFileSystem;
+    }
+
+
+
+
+    boolean exists(final String location, final Resource resource) {
+
+        final long now = System.currentTimeMillis();
+
+        final Entry entry = this.entries.get(location);
+        if (entry != null && entry.expiration >= now) {
+            return entry.exists;
+        }
+
+        if (entry == null && this.entries.size() >= MAX_ENTRIES && !pruneExpiredEntries(now)) {
+            return resource.exists();
+        }
+
+        final WatchedDirectory watchedDirectory = (this.watchFileSystem ? watchDirectory(resource) : null);
+        if (watchedDirectory == null) {
+            final boolean exists = resource.exists();
+            this.entries.put(location, new Entry(exists, now + this.ttlMs));
+            return exists;
+        }
+
+        // Modifications are checked after caching the result, in case the directory changes while checking
+        final int modifications = watchedDirectory.modifications;
+        final boolean exists = resource.exists();
+        watchedDirectory.locations.add(location);
+        this.entries.put(location, new Entry(exists, Long.MAX_VALUE));
+        if (watchedDirectory.modifications != modifications) {
+            this.entries.remove(location);
+        }
+        return exists;
+
+    }
+
+
+    /*
+     * Returns true if any space could be freed in the (full) cache
+     */
+    private synchronized boolean pruneExpiredEntries(final long now) {
+
+        if (this.entries.size() < MAX_ENTRIES) {
+            // Another thread already pruned the cache
+            return true;
+        }
+        if (now < this.nextPruneTime) {
+            // No entries have expired since the last time the cache was pruned
+            return false;
+        }
+
+        long earliestExpiration = Long.MAX_VALUE;
+        for (final Map.Entry<String,Entry> mapEntry : this.entries.entrySet()) {
+            final Entry entry = mapEntry.getValue();
+            if (entry.expiration < now) {
+                this.entries.remove(mapEntry.getKey(), entry);
+            } else if (entry.expiration < earliestExpiration) {
+                earliestExpiration = entry.expiration;
+            }
+        }
+        this.nextPruneTime = earliestExpiration;
+
+        return this.entries.size() < MAX_ENTRIES;
+
+    }
+
+
+    void clear() {
+        this.entries.clear();
+        this.nextPruneTime = 0L;
+    }
+
+
+    synchronized void close() {
+        this.closed = true;
+        if (this.watchService != null) {
+            try {
+                this.watchService.close();
+            } catch (final IOException e) {
+                logger.warn("[THYMELEAF] Could not close template resource watch service", e);
+            }
+            this.watchService = null;
+        }
+        this.watchedDirectories.clear();
+        this.entries.clear();
+    }
+
+
+
+
+    /*
+     * Returns null if the resource is not in the filesystem or its directory cannot be watched
+     */
+    private WatchedDirectory watchDirectory(final Resource resource) {
+
+        final Path directory;
+        try {
+            if (!resource.isFile()) {
+                return null;
+            }
+            directory = resource.getFile().toPath().toAbsolutePath().getParent();
+        } catch (final IOException | RuntimeException e) {
+            return null;
+        }
+        if (directory == null) {
+            return null;
+        }
+
+        final WatchedDirectory watchedDirectory = this.watchedDirectories.get(directory);
+        if (watchedDirectory != null) {
+            return watchedDirectory;
+        }
+        return registerDirectory(directory);
+
+    }
+
+
+    private synchronized WatchedDirectory registerDirectory(final Path directory) {
+
+        WatchedDirectory watchedDirectory = this.watchedDirectories.get(directory);
+        if (watchedDirectory != null) {
+            return watchedDirectory;
+        }
+        if (this.closed || !Files.isDirectory(directory)) {
+            return null;
+        }
+
+        try {
+            if (this.watchService == null) {
+                this.watchService = FileSystems.getDefault().newWatchService();
+                final Thread watcher = new Thread(new Watcher(this.watchService), "thymeleaf-template-resource-watcher");
+                watcher.setDaemon(true);
+                watcher.start();
+            }
+            directory.register(
+                    this.watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (final IOException | RuntimeException e) {
+            logger.warn("[THYMELEAF] Could not watch template directory " + directory + ": existence checks " +
+                        "for templates in this directory will be cached for a limited time only", e);
+            return null;
+        }
+
+        watchedDirectory = new WatchedDirectory();
+        this.watchedDirectories.put(directory, watchedDirectory);
+        return watchedDirectory;
+
+    }
+
+
+    private void directoryChanged(final Path directory, final boolean valid) {
+
+        final WatchedDirectory watchedDirectory =
+                (valid ? this.watchedDirectories.get(directory) : this.watchedDirectories.remove(directory));
+        if (watchedDirectory == null) {
+            return;
+        }
+
+        watchedDirectory.modifications++;
+        for (final String location : watchedDirectory.locations) {
+            this.entries.remove(location);
+        }
+        watchedDirectory.locations.clear();
+
+    }
+
+
+
+
+    private static final class Entry {
+
+        final boolean exists;
+        final long expiration;
+
+        Entry(final boolean exists, final long expiration) {
+            super();
+            this.exists = exists;
+            this.expiration = expiration;
+        }
+
+    }
+
+
+    private static final class WatchedDirectory {
+
+        final Set<String> locations = ConcurrentHashMap.newKeySet();
+        // Only modified by the watcher thread
+        volatile int modifications = 0;
+
+    }
+
+
+    private final class Watcher implements Runnable {
+
+        private final WatchService service;
+
+        Watcher(final WatchService service) {
+            super();
+            this.service = service;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                final WatchKey key;
+                try {
+                    key = this.service.take();
+                } catch (final ClosedWatchServiceException | InterruptedException e) {
+                    return;
+                }
+                // Any event (including OVERFLOW) invalidates all the results cached for the directory
+                key.pollEvents();
+                final boolean valid = key.reset();
+                directoryChanged((Path) key.watchable(), valid);
+            }
+        }
+
+    }
+
+
+}
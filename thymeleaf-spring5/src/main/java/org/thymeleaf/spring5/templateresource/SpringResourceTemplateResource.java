@@ -42,13 +42,17 @@
  *   This resource resolver accesses the Spring resource resolution mechanism by means of
  *   calls to {@link ApplicationContext#getResource(String)}.
  * </p>
+ * <p>
+ *   Note this class is not final since 3.0.12, so that the way the existence of resources is checked can be
+ *   customized (e.g. cached) by overriding {@link #exists()}.
+ * </p>
  *
  * @author Daniel Fern&aacute;ndez
  *
  * @since 3.0.3
  *
  */
-public final class SpringResourceTemplateResource implements ITemplateResource {
+public class SpringResourceTemplateResource implements ITemplateResource {
 
 
     private final Resource resource;
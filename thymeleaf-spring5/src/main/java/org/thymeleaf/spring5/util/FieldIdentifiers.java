@@ -0,0 +1,362 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.web.bind.WebDataBinder;
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   Identifiers derived from the name of a bound field: its {@code id} (the field name without brackets,
+ *   optionally followed by a sequence number) and the name of its field marker (the field name prefixed
+ *   with {@link WebDataBinder#DEFAULT_FIELD_MARKER_PREFIX}), as rendered by {@code th:field} for checkboxes,
+ *   radio buttons and multiple selects.
+ * </p>
+ * <p>
+ *   Instances for field names without numeric indexes are cached by field name, and lazily keep every identifier
+ *   computed from it, so that rendering the same fields again does not create new strings for their ids and
+ *   marker names. Field names with numeric indexes (e.g. {@code items[0].selected} to {@code items[999].selected}
+ *   in an indexed collection form) are not cached themselves: only the bracket-stripped template for their
+ *   shape ({@code items[].selected}) is, and their ids are built by appending the indexes to it.
+ * </p>
+ * <p>
+ *   Both caches are bounded: when full, a part of their entries is evicted to make room for new ones.
+ * </p>
+ * <p>
+ *   Objects of this class are thread-safe.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+public final class FieldIdentifiers {
+
+    // Limit to the amount of field names (and indexed field name shapes) kept, so that field names built from
+    // request data cannot make these caches grow without bounds
+    private static final int MAX_CACHED_NAMES = 1000;
+    private static final int EVICTION_PERCENTAGE = 10;
+    // Limit to the sequence numbers for which sequenced ids are kept (groups of checkboxes or radio buttons)
+    private static final int MAX_CACHED_SEQUENCE = 64;
+
+    private static final String[] NO_SEQUENCED_IDS = new String[0];
+
+    private static final ConcurrentHashMap<String,FieldIdentifiers> CACHE =
+            new ConcurrentHashMap<String, FieldIdentifiers>(64);
+    private static final ConcurrentHashMap<String,IdTemplate> ID_TEMPLATES =
+            new ConcurrentHashMap<String, IdTemplate>(16);
+
+
+    private final String name;
+    private final String id;
+    private volatile String markerName = null;
+    private volatile String[] sequencedIds = NO_SEQUENCED_IDS;
+
+
+
+
+    /**
+     * <p>
+     *   Obtain the identifiers for a field name.
+     * </p>
+     *
+     * @param name the name of the field (as returned by the bind status expression).
+     * @return the field identifiers.
+     */
+    public static FieldIdentifiers forName(final String name) {
+
+        Validate.notNull(name, "Field name cannot be null");
+
+        final String shape = (name.indexOf('[') < 0? null : computeShape(name));
+        if (shape != null) {
+            // Indexed field name: only the template for its shape is cached
+            IdTemplate idTemplate = ID_TEMPLATES.get(shape);
+            if (idTemplate == null) {
+                idTemplate = cache(ID_TEMPLATES, shape, IdTemplate.forName(name));
+            }
+            return new FieldIdentifiers(name, idTemplate.buildId(name));
+        }
+
+        final FieldIdentifiers fieldIdentifiers = CACHE.get(name);
+        if (fieldIdentifiers != null) {
+            return fieldIdentifiers;
+        }
+        return cache(CACHE, name, new FieldIdentifiers(name, computeId(name)));
+
+    }
+
+
+    private static <T> T cache(final ConcurrentHashMap<String,T> cache, final String key, final T value) {
+        if (cache.size() >= MAX_CACHED_NAMES) {
+            evict(cache);
+        }
+        final T existing = cache.putIfAbsent(key, value);
+        return (existing != null? existing : value);
+    }
+
+
+    /*
+     * Removes a part of the entries in a full cache. No usage data is kept for entries, so these are just
+     * the first ones in iteration order: identifiers are cheap to compute again.
+     */
+    private static void evict(final ConcurrentHashMap<String,?> cache) {
+        synchronized (cache) {
+            if (cache.size() < MAX_CACHED_NAMES) {
+                // Another thread already evicted entries
+                return;
+            }
+            int toBeEvicted = Math.max(1, (MAX_CACHED_NAMES * EVICTION_PERCENTAGE) / 100);
+            final Iterator<String> keys = cache.keySet().iterator();
+            while (toBeEvicted-- > 0 && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+    }
+
+
+
+
+    private FieldIdentifiers(final String name, final String id) {
+        super();
+        this.name = name;
+        this.id = id;
+    }
+
+
+
+
+    public String getName() {
+        return this.name;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the id for the field, i.e. its name with all brackets ({@code [} and {@code ]}) removed.
+     * </p>
+     *
+     * @return the id.
+     */
+    public String getId() {
+        return this.id;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the id for the field followed by the specified sequence number, as rendered for checkboxes and
+     *   radio buttons (e.g. {@code features1}, {@code features2}...).
+     * </p>
+     *
+     * @param sequence the sequence number, normally obtained from the identifier sequences of the template context.
+     * @return the sequenced id.
+     */
+    public String getId(final int sequence) {
+
+        if (sequence < 0 || sequence >= MAX_CACHED_SEQUENCE) {
+            return this.id + sequence;
+        }
+
+        final String[] ids = this.sequencedIds;
+        if (sequence < ids.length && ids[sequence] != null) {
+            return ids[sequence];
+        }
+
+        final String sequencedId = this.id + sequence;
+        // Copy-on-write: concurrent additions might be lost, which only means they will be computed again
+        final String[] newIds = Arrays.copyOf(ids, Math.max(ids.length, sequence + 1));
+        newIds[sequence] = sequencedId;
+        this.sequencedIds = newIds;
+        return sequencedId;
+
+    }
+
+
+    /**
+     * <p>
+     *   Returns the name of the field marker (an {@code <input type="hidden">} signaling the presence of the field
+     *   in the form even if no value is submitted for it).
+     * </p>
+     *
+     * @return the field marker name.
+     */
+    public String getMarkerName() {
+        String marker = this.markerName;
+        if (marker == null) {
+            marker = WebDataBinder.DEFAULT_FIELD_MARKER_PREFIX + this.name;
+            this.markerName = marker;
+        }
+        return marker;
+    }
+
+
+
+
+    static String computeId(final String name) {
+
+        final int len = name.length();
+        int i = 0;
+        while (i < len) {
+            final char c = name.charAt(i);
+            if (c == '[' || c == ']') {
+                break;
+            }
+            i++;
+        }
+        if (i == len) {
+            // Nothing to remove (e.g. non-indexed properties): the name is the id
+            return name;
+        }
+
+        final StringBuilder strBuilder = new StringBuilder(len);
+        strBuilder.append(name, 0, i);
+        for (; i < len; i++) {
+            final char c = name.charAt(i);
+            if (c != '[' && c != ']') {
+                strBuilder.append(c);
+            }
+        }
+        return strBuilder.toString();
+
+    }
+
+
+    /*
+     * Returns the shape of a field name, i.e. the name with the digits of its numeric indexes removed (e.g.
+     * "items[].selected" for "items[12].selected"), or null if the name has no numeric indexes. Names
+     * containing empty brackets have no shape either, as it would not be possible to tell these from
+     * the removed indexes.
+     */
+    private static String computeShape(final String name) {
+
+        if (name.indexOf("[]") >= 0) {
+            return null;
+        }
+
+        final int len = name.length();
+        StringBuilder strBuilder = null;
+        int pos = 0;
+        for (int i = 0; i < len; i++) {
+            final int indexEnd = findNumericIndexEnd(name, i);
+            if (indexEnd >= 0) {
+                if (strBuilder == null) {
+                    strBuilder = new StringBuilder(len);
+                }
+                strBuilder.append(name, pos, i + 1);
+                pos = indexEnd;
+                i = indexEnd;
+            }
+        }
+        if (strBuilder == null) {
+            return null;
+        }
+        strBuilder.append(name, pos, len);
+        return strBuilder.toString();
+
+    }
+
+
+    /*
+     * If a numeric index (e.g. "[12]") starts at the specified position, returns the position of its closing
+     * bracket. Returns -1 otherwise.
+     */
+    private static int findNumericIndexEnd(final String name, final int pos) {
+        if (name.charAt(pos) != '[') {
+            return -1;
+        }
+        final int len = name.length();
+        int i = pos + 1;
+        while (i < len && name.charAt(i) >= '0' && name.charAt(i) <= '9') {
+            i++;
+        }
+        return (i > pos + 1 && i < len && name.charAt(i) == ']'? i : -1);
+    }
+
+
+
+
+    /*
+     * Bracket-stripped parts of the field names sharing a shape, between which the numeric indexes of each
+     * specific name are inserted in order to build its id.
+     */
+    private static final class IdTemplate {
+
+        private final String[] segments;
+
+        static IdTemplate forName(final String name) {
+            final int len = name.length();
+            final String[] segments = new String[countNumericIndexes(name) + 1];
+            int segment = 0;
+            int pos = 0;
+            for (int i = 0; i < len; i++) {
+                final int indexEnd = findNumericIndexEnd(name, i);
+                if (indexEnd >= 0) {
+                    segments[segment++] = computeId(name.substring(pos, i));
+                    pos = indexEnd + 1;
+                    i = indexEnd;
+                }
+            }
+            segments[segment] = computeId(name.substring(pos));
+            return new IdTemplate(segments);
+        }
+
+        private static int countNumericIndexes(final String name) {
+            int count = 0;
+            for (int i = 0, len = name.length(); i < len; i++) {
+                final int indexEnd = findNumericIndexEnd(name, i);
+                if (indexEnd >= 0) {
+                    count++;
+                    i = indexEnd;
+                }
+            }
+            return count;
+        }
+
+        private IdTemplate(final String[] segments) {
+            super();
+            this.segments = segments;
+        }
+
+        String buildId(final String name) {
+            final int len = name.length();
+            final StringBuilder strBuilder = new StringBuilder(len);
+            int segment = 0;
+            strBuilder.append(this.segments[segment++]);
+            for (int i = 0; i < len; i++) {
+                final int indexEnd = findNumericIndexEnd(name, i);
+                if (indexEnd >= 0) {
+                    strBuilder.append(name, i + 1, indexEnd);
+                    strBuilder.append(this.segments[segment++]);
+                    i = indexEnd;
+                }
+            }
+            return strBuilder.toString();
+        }
+
+    }
+
+
+}
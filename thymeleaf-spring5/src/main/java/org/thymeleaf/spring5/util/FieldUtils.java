@@ -26,12 +26,18 @@
 
 import org.springframework.beans.NotReadablePropertyException;
 import org.springframework.beans.PropertyAccessor;
-import org.springframework.util.StringUtils;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.Errors;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.ObjectError;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.cache.ExpressionCacheKey;
+import org.thymeleaf.cache.ICache;
+import org.thymeleaf.cache.ICacheManager;
 import org.thymeleaf.context.IExpressionContext;
+import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.spring5.context.FieldErrorIndex;
 import org.thymeleaf.spring5.context.IThymeleafBindStatus;
 import org.thymeleaf.spring5.context.IThymeleafRequestContext;
 import org.thymeleaf.spring5.context.SpringContextUtils;
@@ -65,42 +71,61 @@ public final class FieldUtils {
     public static final String GLOBAL_EXPRESSION = "global";
     public static final String ALL_EXPRESSION = "all";
 
+    private static final String EXPRESSION_CACHE_TYPE_FIELD_EXPRESSION = "fieldexp";
+    private static final String EXPRESSION_CACHE_TYPE_FIELD_NAME = "fieldname";
+    private static final String PREPROCESSING_DELIMITER = "__";
+
+    // If "global", "all" or "*" are used without prefix, they must be inside a form, so they are *{...}
+    private static final FieldExpression GLOBAL_FIELD_EXPRESSION = new FieldExpression(true, GLOBAL_EXPRESSION);
+    private static final FieldExpression ALL_FIELD_EXPRESSION = new FieldExpression(true, ALL_EXPRESSION);
+    private static final FieldExpression ALL_FIELDS_FIELD_EXPRESSION = new FieldExpression(true, ALL_FIELDS);
+
 
 
     public static boolean hasErrors(final IExpressionContext context, final String field) {
-        return checkErrors(context, convertToFieldExpression(field));
+        return checkErrors(context, convertToFieldExpression(context, field));
     }
 
     public static boolean hasAnyErrors(final IExpressionContext context) {
-        return checkErrors(context, ALL_EXPRESSION);
+        return checkErrors(context, ALL_FIELD_EXPRESSION);
     }
 
     public static boolean hasGlobalErrors(final IExpressionContext context) {
-        return checkErrors(context, GLOBAL_EXPRESSION);
+        return checkErrors(context, GLOBAL_FIELD_EXPRESSION);
     }
 
 
 
     public static List<String> errors(final IExpressionContext context, final String field) {
-        return computeErrors(context, convertToFieldExpression(field));
+        return computeErrors(context, convertToFieldExpression(context, field));
     }
 
     public static List<String> errors(final IExpressionContext context) {
-        return computeErrors(context, ALL_EXPRESSION);
+        return computeErrors(context, ALL_FIELD_EXPRESSION);
     }
 
     public static List<String> globalErrors(final IExpressionContext context) {
-        return computeErrors(context, GLOBAL_EXPRESSION);
+        return computeErrors(context, GLOBAL_FIELD_EXPRESSION);
     }
 
-    private static List<String> computeErrors(final IExpressionContext context, final String fieldExpression) {
+    private static List<String> computeErrors(final IExpressionContext context, final FieldExpression fieldExpression) {
 
-        final IThymeleafBindStatus bindStatus = FieldUtils.getBindStatus(context, fieldExpression);
+        final IThymeleafBindStatus bindStatus = getBindStatus(context, false, fieldExpression);
         if (bindStatus == null) {
             return Collections.EMPTY_LIST;
         }
 
-        final String[] errorMessages = bindStatus.getErrorMessages();
+        final String[] errorMessages;
+        final Errors errors = bindStatus.getErrors();
+        final IThymeleafRequestContext requestContext = SpringContextUtils.getRequestContext(context);
+        if (errors != null && requestContext != null) {
+            // Messages are resolved through the error index so that they are shared with #fields.detailedErrors.
+            // Bind status objects obtained by FieldUtils are never HTML-escaped.
+            errorMessages =
+                    requestContext.getFieldErrorIndex(errors).getErrorMessages(bindStatus.getExpression(), false);
+        } else {
+            errorMessages = bindStatus.getErrorMessages();
+        }
         if (errorMessages == null || errorMessages.length == 0) {
             // If we don't need a new object, we avoid creating it
             return Collections.EMPTY_LIST;
@@ -113,23 +138,23 @@ private static List<String> computeErrors(final IExpressionContext context, fina
 
 
     public static List<DetailedError> detailedErrors(final IExpressionContext context) {
-        return computeDetailedErrors(context, ALL_EXPRESSION);
+        return computeDetailedErrors(context, ALL_FIELD_EXPRESSION);
     }
 
 
     public static List<DetailedError> detailedErrors(final IExpressionContext context, final String field) {
-        return computeDetailedErrors(context, convertToFieldExpression(field));
+        return computeDetailedErrors(context, convertToFieldExpression(context, field));
     }
 
     public static List<DetailedError> globalDetailedErrors(final IExpressionContext context) {
-        return computeDetailedErrors(context, GLOBAL_EXPRESSION);
+        return computeDetailedErrors(context, GLOBAL_FIELD_EXPRESSION);
     }
 
 
     private static List<DetailedError> computeDetailedErrors(
-            final IExpressionContext context, final String fieldExpression) {
+            final IExpressionContext context, final FieldExpression fieldExpression) {
 
-        final IThymeleafBindStatus bindStatus = FieldUtils.getBindStatus(context, fieldExpression);
+        final IThymeleafBindStatus bindStatus = getBindStatus(context, false, fieldExpression);
         if (bindStatus == null) {
             return Collections.EMPTY_LIST;
         }
@@ -144,15 +169,19 @@ private static List<DetailedError> computeDetailedErrors(
             return Collections.EMPTY_LIST;
         }
 
+        // Errors are looked up (and their messages resolved) through the index for the form's errors, which is
+        // built only once per template execution instead of scanning all the errors for each field
+        final FieldErrorIndex fieldErrorIndex = requestContext.getFieldErrorIndex(errors);
+
         // We will try to avoid creating the List if we don't need it
         List<DetailedError> errorObjects = null;
 
         final String bindExpression = bindStatus.getExpression();
 
         if (bindExpression == null || ALL_EXPRESSION.equals(bindExpression) || ALL_FIELDS.equals(bindExpression)) {
-            final List<ObjectError> globalErrors = errors.getGlobalErrors();
+            final List<ObjectError> globalErrors = fieldErrorIndex.getGlobalErrors();
             for (final ObjectError globalError : globalErrors) {
-                final String message = requestContext.getMessage(globalError, false);
+                final String message = fieldErrorIndex.getMessage(globalError, false);
                 final DetailedError errorObject =
                         new DetailedError(globalError.getCode(), globalError.getArguments(), message);
                 if (errorObjects == null) {
@@ -163,9 +192,9 @@ private static List<DetailedError> computeDetailedErrors(
         }
 
         if (bindExpression != null) {
-            final List<FieldError> fieldErrors = errors.getFieldErrors(bindStatus.getExpression());
+            final List<FieldError> fieldErrors = fieldErrorIndex.getFieldErrors(bindExpression);
             for (final FieldError fieldError : fieldErrors) {
-                final String message = requestContext.getMessage(fieldError, false);
+                final String message = fieldErrorIndex.getMessage(fieldError, false);
                 final DetailedError errorObject =
                         new DetailedError(fieldError.getField(), fieldError.getCode(), fieldError.getArguments(), message);
                 if (errorObjects == null) {
@@ -185,34 +214,35 @@ private static List<DetailedError> computeDetailedErrors(
 
 
     public static String idFromName(final String fieldName) {
-        return StringUtils.deleteAny(fieldName, "[]");
+        return FieldIdentifiers.computeId(fieldName);
     }
 
 
 
-    private static String convertToFieldExpression(final String field) {
-        if (field == null) {
-            return null;
-        }
+    private static FieldExpression convertToFieldExpression(final IExpressionContext context, final String field) {
+        Validate.notNull(field, "Expression cannot be null");
         final String trimmedField = field.trim();
-        if (trimmedField.length() == 0) {
-            return null;
-        }
+        Validate.isTrue(trimmedField.length() > 0, "Expression cannot be empty");
         final char firstc = trimmedField.charAt(0);
         if (firstc == '*' || firstc == '$') {
-            return field;
+            return getFieldExpression(context, field);
         }
-        return "*{" + field + "}";
+        if (field.indexOf('{') >= 0 || field.indexOf('}') >= 0) {
+            // Not a plain field name: let the expression parser deal with it
+            return getFieldExpression(context, "*{" + field + "}");
+        }
+        // A plain field name is equivalent to *{field}, so there is no need to build and parse such expression
+        return getFieldNameExpression(context, field);
     }
 
 
 
     private static boolean checkErrors(
-            final IExpressionContext context, final String expression) {
-        final IThymeleafBindStatus bindStatus = FieldUtils.getBindStatus(context, expression);
+            final IExpressionContext context, final FieldExpression fieldExpression) {
+        final IThymeleafBindStatus bindStatus = getBindStatus(context, false, fieldExpression);
         if (bindStatus == null) {
             throw new TemplateProcessingException(
-                    "Could not bind form errors using expression \"" + expression + "\". Please check this " +
+                    "Could not bind form errors using expression \"" + fieldExpression + "\". Please check this " +
                     "expression is being executed inside the adequate context (e.g. a <form> with a th:object " +
                     "attribute)");
         }
@@ -234,13 +264,73 @@ public static IThymeleafBindStatus getBindStatus(
 
         Validate.notNull(expression, "Expression cannot be null");
 
-        if (GLOBAL_EXPRESSION.equals(expression) || ALL_EXPRESSION.equals(expression) || ALL_FIELDS.equals(expression)) {
-            // If "global", "all" or "*" are used without prefix, they must be inside a form, so we add *{...}
-            final String completeExpression = "*{" + expression + "}";
-            return getBindStatus(context, optional, completeExpression);
+        return getBindStatus(context, optional, getFieldExpression(context, expression));
+
+    }
+
+
+
+    private static IThymeleafBindStatus getBindStatus(
+            final IExpressionContext context,
+            final boolean optional, final FieldExpression fieldExpression) {
+
+        // This method will return null if no binding is found and optional == true
+
+        // Inside a form, the request context and bound object expression have already been looked up by th:object
+        final FormRenderPlan formRenderPlan = FormRenderPlan.getFormRenderPlan(context);
+
+        final IThymeleafRequestContext requestContext = getRequestContext(context, formRenderPlan);
+        if (requestContext == null) {
+            return null;
+        }
+
+        final String completeExpression;
+        if (fieldExpression.useSelectionAsRoot) {
+            final String boundObjectExpression = getBoundObjectExpression(context, formRenderPlan);
+            completeExpression =
+                    (boundObjectExpression == null?
+                            computeValueExpression(null, fieldExpression.expression) :
+                            fieldExpression.computeValueExpression(boundObjectExpression));
+        } else {
+            completeExpression = fieldExpression.expression;
+        }
+
+        return getBindStatusFromCompleteExpression(context, requestContext, optional, completeExpression);
+
+    }
+
+
+
+    /*
+     * Obtains the parsed and classified form of a field expression (attribute values like *{name} or
+     * ${bean.name}). These are cached in the expression cache so that we avoid not only parsing them each
+     * time, but also allocating the complete expression (with the bound object prefix) for each field.
+     */
+    private static FieldExpression getFieldExpression(final IExpressionContext context, final String expression) {
+
+        if (GLOBAL_EXPRESSION.equals(expression)) {
+            return GLOBAL_FIELD_EXPRESSION;
+        }
+        if (ALL_EXPRESSION.equals(expression)) {
+            return ALL_FIELD_EXPRESSION;
+        }
+        if (ALL_FIELDS.equals(expression)) {
+            return ALL_FIELDS_FIELD_EXPRESSION;
         }
 
-        final IStandardExpressionParser expressionParser = StandardExpressions.getExpressionParser(context.getConfiguration());
+        final IEngineConfiguration configuration = context.getConfiguration();
+
+        // Expressions needing preprocessing cannot be cached, as their result depends on the context
+        final ICache<ExpressionCacheKey,Object> cache =
+                (expression.indexOf(PREPROCESSING_DELIMITER) < 0? getExpressionCache(configuration) : null);
+        if (cache != null) {
+            final Object cached = cache.get(new ExpressionCacheKey(EXPRESSION_CACHE_TYPE_FIELD_EXPRESSION, expression));
+            if (cached != null) {
+                return (FieldExpression) cached;
+            }
+        }
+
+        final IStandardExpressionParser expressionParser = StandardExpressions.getExpressionParser(configuration);
         final IStandardExpression expressionObj = expressionParser.parseExpression(context, expression);
 
         if (expressionObj == null) {
@@ -248,23 +338,54 @@ public static IThymeleafBindStatus getBindStatus(
                     "Expression \"" + expression + "\" is not valid: cannot perform Spring bind");
         }
 
+        final FieldExpression fieldExpression;
         if (expressionObj instanceof SelectionVariableExpression) {
-            final String bindExpression = ((SelectionVariableExpression)expressionObj).getExpression();
-            return getBindStatusFromParsedExpression(context, optional, true, bindExpression);
+            fieldExpression = new FieldExpression(true, ((SelectionVariableExpression)expressionObj).getExpression());
+        } else if (expressionObj instanceof VariableExpression) {
+            fieldExpression = new FieldExpression(false, ((VariableExpression)expressionObj).getExpression());
+        } else {
+            throw new TemplateProcessingException(
+                    "Expression \"" + expression + "\" is not valid: only variable expressions ${...} or " +
+                    "selection expressions *{...} are allowed in Spring field bindings");
+        }
+
+        if (cache != null) {
+            cache.put(new ExpressionCacheKey(EXPRESSION_CACHE_TYPE_FIELD_EXPRESSION, expression), fieldExpression);
         }
+        return fieldExpression;
 
-        if (expressionObj instanceof VariableExpression) {
-            final String bindExpression = ((VariableExpression)expressionObj).getExpression();
-            return getBindStatusFromParsedExpression(context, optional, false, bindExpression);
+    }
+
+
+    private static FieldExpression getFieldNameExpression(final IExpressionContext context, final String fieldName) {
+
+        if (fieldName.indexOf(PREPROCESSING_DELIMITER) >= 0) {
+            return getFieldExpression(context, "*{" + fieldName + "}");
         }
 
-        throw new TemplateProcessingException(
-                "Expression \"" + expression + "\" is not valid: only variable expressions ${...} or " +
-                "selection expressions *{...} are allowed in Spring field bindings");
+        final ICache<ExpressionCacheKey,Object> cache = getExpressionCache(context.getConfiguration());
+        if (cache == null) {
+            return new FieldExpression(true, fieldName);
+        }
+
+        final ExpressionCacheKey cacheKey = new ExpressionCacheKey(EXPRESSION_CACHE_TYPE_FIELD_NAME, fieldName);
+        final Object cached = cache.get(cacheKey);
+        if (cached != null) {
+            return (FieldExpression) cached;
+        }
+        final FieldExpression fieldExpression = new FieldExpression(true, fieldName);
+        cache.put(cacheKey, fieldExpression);
+        return fieldExpression;
 
     }
 
 
+    private static ICache<ExpressionCacheKey,Object> getExpressionCache(final IEngineConfiguration configuration) {
+        final ICacheManager cacheManager = configuration.getCacheManager();
+        return (cacheManager == null? null : cacheManager.getExpressionCache());
+    }
+
+
 
     public static IThymeleafBindStatus getBindStatusFromParsedExpression(
             final IExpressionContext context,
@@ -289,13 +410,25 @@ public static IThymeleafBindStatus getBindStatusFromParsedExpression(
 
         // This method will return null if no binding is found and optional == true
 
-        final IThymeleafRequestContext requestContext = SpringContextUtils.getRequestContext(context);
+        final FormRenderPlan formRenderPlan = FormRenderPlan.getFormRenderPlan(context);
+
+        final IThymeleafRequestContext requestContext = getRequestContext(context, formRenderPlan);
         if (requestContext == null) {
             return null;
         }
 
         final String completeExpression =
-                FieldUtils.validateAndGetValueExpression(context, useSelectionAsRoot, expression);
+                FieldUtils.validateAndGetValueExpression(context, formRenderPlan, useSelectionAsRoot, expression);
+
+        return getBindStatusFromCompleteExpression(context, requestContext, optional, completeExpression);
+
+    }
+
+
+
+    private static IThymeleafBindStatus getBindStatusFromCompleteExpression(
+            final IExpressionContext context, final IThymeleafRequestContext requestContext,
+            final boolean optional, final String completeExpression) {
 
         if (completeExpression == null) {
             return null;
@@ -309,10 +442,30 @@ public static IThymeleafBindStatus getBindStatusFromParsedExpression(
 
         if (isBound(requestContext, completeExpression)) {
             // Creating an instance of BindStatus for an unbound object results in an (expensive) exception,
-            // so we avoid it by checking first. Because the check is a simplification, we still handle the exception.
+            // so we avoid it by checking first. Because the check is a simplification, we still handle the exception,
+            // and remember the paths that raised it so that the exception is not raised again for the same bean class
+            // (and binding result class, as e.g. DirectFieldBindingResult reads fields instead of properties).
+            final int dotPos = completeExpression.indexOf('.');
+            final String path = completeExpression.substring(dotPos + 1);
+            final UnreadableBindPathCache unreadableBindPathCache =
+                    (UnreadableBindPathCache.isCacheable(path) && context instanceof ITemplateContext?
+                            UnreadableBindPathCache.forApplicationContext(
+                                    SpringContextUtils.getApplicationContext((ITemplateContext) context)) :
+                            null);
+            final BindingResult bindingResult =
+                    (unreadableBindPathCache != null?
+                            getBoundBindingResult(requestContext, completeExpression.substring(0, dotPos)) : null);
+            final Class<?> bindingResultClass = (bindingResult != null? bindingResult.getClass() : null);
+            final Class<?> beanClass = (bindingResult != null? bindingResult.getTarget().getClass() : null);
+            if (beanClass != null && unreadableBindPathCache.isUnreadable(bindingResultClass, beanClass, path)) {
+                return null;
+            }
             try {
                 return requestContext.getBindStatus(completeExpression, false);
             } catch (final NotReadablePropertyException ignored) {
+                if (beanClass != null) {
+                    unreadableBindPathCache.markUnreadable(bindingResultClass, beanClass, path);
+                }
                 return null;
             }
         }
@@ -325,44 +478,63 @@ public static IThymeleafBindStatus getBindStatusFromParsedExpression(
 
 
     private static String validateAndGetValueExpression(
-            final IExpressionContext context, final boolean useSelectionAsRoot, final String expression) {
+            final IExpressionContext context, final FormRenderPlan formRenderPlan,
+            final boolean useSelectionAsRoot, final String expression) {
 
         /*
          * Only asterisk syntax (selection variable expressions) are allowed here.
          */
 
         if (useSelectionAsRoot) {
+            return computeValueExpression(getBoundObjectExpression(context, formRenderPlan), expression);
+        }
 
-            VariableExpression boundObjectValue =
-                    (VariableExpression) context.getVariable(SpringContextVariableNames.SPRING_BOUND_OBJECT_EXPRESSION);
+        return expression;
 
-            final String boundObjectExpression =
-                    (boundObjectValue == null? null : boundObjectValue.getExpression());
+    }
+
+
+    private static IThymeleafRequestContext getRequestContext(
+            final IExpressionContext context, final FormRenderPlan formRenderPlan) {
+        if (formRenderPlan != null) {
+            return formRenderPlan.getRequestContext();
+        }
+        return SpringContextUtils.getRequestContext(context);
+    }
+
+
+    private static String getBoundObjectExpression(
+            final IExpressionContext context, final FormRenderPlan formRenderPlan) {
+        final VariableExpression boundObjectValue =
+                (formRenderPlan != null?
+                        formRenderPlan.getBoundObjectExpression() :
+                        (VariableExpression) context.getVariable(SpringContextVariableNames.SPRING_BOUND_OBJECT_EXPRESSION));
+        return (boundObjectValue == null? null : boundObjectValue.getExpression());
+    }
 
-            if (GLOBAL_EXPRESSION.equals(expression)) {
-                // Should return null if no object previously bound: nothing to apply 'global' on!
-                if (boundObjectExpression == null) {
-                    return null;
-                }
-                return boundObjectExpression;
-            }
-            if (ALL_EXPRESSION.equals(expression) || ALL_FIELDS.equals(expression)) {
-                // Should return null if no object previously bound: nothing to apply '*' on!
-                if (boundObjectExpression == null) {
-                    return null;
-                }
-                return boundObjectExpression + "." + ALL_FIELDS;
-            }
 
+    private static String computeValueExpression(final String boundObjectExpression, final String expression) {
+
+        if (GLOBAL_EXPRESSION.equals(expression)) {
+            // Should return null if no object previously bound: nothing to apply 'global' on!
             if (boundObjectExpression == null) {
-                return expression;
+                return null;
             }
+            return boundObjectExpression;
+        }
+        if (ALL_EXPRESSION.equals(expression) || ALL_FIELDS.equals(expression)) {
+            // Should return null if no object previously bound: nothing to apply '*' on!
+            if (boundObjectExpression == null) {
+                return null;
+            }
+            return boundObjectExpression + "." + ALL_FIELDS;
+        }
 
-            return boundObjectExpression + "." + expression;
-
+        if (boundObjectExpression == null) {
+            return expression;
         }
 
-        return expression;
+        return boundObjectExpression + "." + expression;
 
     }
 
@@ -391,6 +563,20 @@ private static boolean isBound(final IThymeleafRequestContext requestContext, fi
     }
 
 
+    /*
+     * Returns the binding result for the specified bean, only if it has a (non-null) target.
+     */
+    private static BindingResult getBoundBindingResult(
+            final IThymeleafRequestContext requestContext, final String beanName) {
+        // The getErrors() method has a cache map, and it has already been called for this bean by isBound()
+        final Errors errors = requestContext.getErrors(beanName, false).orElse(null);
+        if (!(errors instanceof BindingResult) || ((BindingResult) errors).getTarget() == null) {
+            return null;
+        }
+        return (BindingResult) errors;
+    }
+
+
     /*
      * This method determines whether a fragment of a bean path is a valid bean property identifier
      * or bean property expression.
@@ -420,4 +606,56 @@ private FieldUtils() {
         super();
     }
 
+
+
+
+    /*
+     * Parsed and classified form of a field expression. Also memoizes the last complete expression computed for
+     * it (i.e. with the bound object expression as a prefix), as the same field expression will normally be
+     * used on the same bound object. Instances of this class are thread-safe.
+     */
+    private static final class FieldExpression {
+
+        final boolean useSelectionAsRoot;
+        final String expression;
+        private volatile ValueExpression lastValueExpression = null;
+
+        FieldExpression(final boolean useSelectionAsRoot, final String expression) {
+            super();
+            this.useSelectionAsRoot = useSelectionAsRoot;
+            this.expression = expression;
+        }
+
+        String computeValueExpression(final String boundObjectExpression) {
+            final ValueExpression last = this.lastValueExpression;
+            if (last != null && (last.boundObjectExpression == boundObjectExpression ||
+                                    last.boundObjectExpression.equals(boundObjectExpression))) {
+                return last.valueExpression;
+            }
+            final String valueExpression = FieldUtils.computeValueExpression(boundObjectExpression, this.expression);
+            this.lastValueExpression = new ValueExpression(boundObjectExpression, valueExpression);
+            return valueExpression;
+        }
+
+        @Override
+        public String toString() {
+            return (this.useSelectionAsRoot? "*{" : "${") + this.expression + "}";
+        }
+
+    }
+
+
+    private static final class ValueExpression {
+
+        final String boundObjectExpression;
+        final String valueExpression;
+
+        ValueExpression(final String boundObjectExpression, final String valueExpression) {
+            super();
+            this.boundObjectExpression = boundObjectExpression;
+            this.valueExpression = valueExpression;
+        }
+
+    }
+
 }
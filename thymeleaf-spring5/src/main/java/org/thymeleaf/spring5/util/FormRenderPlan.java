@@ -0,0 +1,173 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.thymeleaf.context.IExpressionContext;
+import org.thymeleaf.spring5.context.IThymeleafBindStatus;
+import org.thymeleaf.spring5.context.IThymeleafRequestContext;
+import org.thymeleaf.spring5.context.IThymeleafRequestDataValueProcessor;
+import org.thymeleaf.spring5.context.SpringContextUtils;
+import org.thymeleaf.spring5.naming.SpringContextVariableNames;
+import org.thymeleaf.standard.expression.VariableExpression;
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   Form-level state computed once by {@code th:object} when a form is entered, and made available to all
+ *   the field processors and field-related expression utilities executed inside it by means of the
+ *   {@link SpringContextVariableNames#SPRING_FORM_RENDER_PLAN} local variable.
+ * </p>
+ * <p>
+ *   Render plans are only created for {@code th:object} attributes in {@code <form>} elements. Fields inside
+ *   {@code th:object} attributes set on any other elements (e.g. nested objects) look up this state on their own.
+ * </p>
+ * <p>
+ *   This avoids each field having to look up on its own the request context, the bound object expression or the
+ *   request data value processor (which might imply searching through every context level and even the
+ *   request attributes), and also allows fields to share form-wide structures like the selected value indexes
+ *   used by checkbox and radio button groups.
+ * </p>
+ * <p>
+ *   Instances of this class are created for each template execution and are NOT thread-safe.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+public final class FormRenderPlan {
+
+    private final IThymeleafRequestContext requestContext;
+    private final VariableExpression boundObjectExpression;
+    private final IThymeleafRequestDataValueProcessor requestDataValueProcessor;
+    private Map<String,SpringSelectedValueIndex> selectedValueIndexes = null;
+
+
+
+    /**
+     * <p>
+     *   Creates the render plan for a form bound to the specified object expression.
+     * </p>
+     *
+     * @param context the context in which the form (i.e. the {@code th:object} attribute) is being processed.
+     * @param boundObjectExpression the expression for the object bound to the form.
+     * @return the render plan.
+     */
+    public static FormRenderPlan forForm(
+            final IExpressionContext context, final VariableExpression boundObjectExpression) {
+        Validate.notNull(boundObjectExpression, "Bound object expression cannot be null");
+        return new FormRenderPlan(SpringContextUtils.getRequestContext(context), boundObjectExpression);
+    }
+
+
+    /**
+     * <p>
+     *   Obtains the render plan for the form currently being processed, if any.
+     * </p>
+     *
+     * @param context the context.
+     * @return the render plan, or {@code null} if not inside a form with a {@code th:object} attribute.
+     */
+    public static FormRenderPlan getFormRenderPlan(final IExpressionContext context) {
+        if (context == null) {
+            return null;
+        }
+        return (FormRenderPlan) context.getVariable(SpringContextVariableNames.SPRING_FORM_RENDER_PLAN);
+    }
+
+
+
+    private FormRenderPlan(
+            final IThymeleafRequestContext requestContext, final VariableExpression boundObjectExpression) {
+        super();
+        this.requestContext = requestContext;
+        this.boundObjectExpression = boundObjectExpression;
+        this.requestDataValueProcessor = (requestContext == null? null : requestContext.getRequestDataValueProcessor());
+    }
+
+
+
+    /**
+     * <p>
+     *   Returns the request context, as existing when the form was entered.
+     * </p>
+     *
+     * @return the request context (might be null if not executing inside a Spring request).
+     */
+    public IThymeleafRequestContext getRequestContext() {
+        return this.requestContext;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the expression for the object bound to the form.
+     * </p>
+     *
+     * @return the bound object expression.
+     */
+    public VariableExpression getBoundObjectExpression() {
+        return this.boundObjectExpression;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the request data value processor for the form fields.
+     * </p>
+     *
+     * @return the request data value processor (might be null if not executing inside a Spring request).
+     */
+    public IThymeleafRequestDataValueProcessor getRequestDataValueProcessor() {
+        return this.requestDataValueProcessor;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the selected value index for the specified bind status, creating it the first time it is
+     *   requested for its path (or when the value bound to such path has changed).
+     * </p>
+     *
+     * @param bindStatus the bind status.
+     * @return the selected value index.
+     */
+    public SpringSelectedValueIndex getSelectedValueIndex(final IThymeleafBindStatus bindStatus) {
+        Validate.notNull(bindStatus, "Bind status cannot be null");
+        if (bindStatus.getPath() == null) {
+            return SpringSelectedValueIndex.forBindStatus(bindStatus);
+        }
+        if (this.selectedValueIndexes == null) {
+            this.selectedValueIndexes = new HashMap<String, SpringSelectedValueIndex>(4);
+        }
+        SpringSelectedValueIndex index = this.selectedValueIndexes.get(bindStatus.getPath());
+        if (index == null || !index.isFor(bindStatus)) {
+            index = SpringSelectedValueIndex.forBindStatus(bindStatus);
+            this.selectedValueIndexes.put(bindStatus.getPath(), index);
+        }
+        return index;
+    }
+
+
+}
@@ -0,0 +1,135 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.util;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   Immutable snapshot of the items to be used for generating the {@code <option>}s of a {@code <select>} by
+ *   means of the {@code th:options} attribute.
+ * </p>
+ * <p>
+ *   Wrapping reference data (countries, currencies, cost centres...) in an object of this class tells
+ *   {@code th:options} that these items will never change, so that the escaped markup for their options
+ *   can be computed only once and then reused across template executions. Only which of them are
+ *   <em>selected</em> is computed each time.
+ * </p>
+ * <p>
+ *   Items are copied when an instance is created (map items are copied as immutable map entries), so
+ *   modifications to the original collection will not be reflected. Note the items themselves (and the properties
+ *   used as option values and labels) are expected to be immutable too.
+ * </p>
+ * <p>
+ *   Objects of this class are thread-safe.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+public final class ImmutableOptionItems implements Iterable<Object> {
+
+    private final List<Object> items;
+
+
+
+    /**
+     * <p>
+     *   Creates an immutable snapshot of the specified items.
+     * </p>
+     *
+     * @param items the items.
+     * @return the immutable items.
+     */
+    public static ImmutableOptionItems of(final Collection<?> items) {
+        Validate.notNull(items, "Items cannot be null");
+        return new ImmutableOptionItems(new ArrayList<Object>(items));
+    }
+
+
+    /**
+     * <p>
+     *   Creates an immutable snapshot of the specified items.
+     * </p>
+     *
+     * @param items the items.
+     * @return the immutable items.
+     */
+    public static ImmutableOptionItems of(final Object... items) {
+        Validate.notNull(items, "Items cannot be null");
+        return new ImmutableOptionItems(new ArrayList<Object>(Arrays.asList(items)));
+    }
+
+
+    /**
+     * <p>
+     *   Creates an immutable snapshot of the entries of the specified map. As with non-immutable maps,
+     *   keys will be used as option values and values as option labels.
+     * </p>
+     *
+     * @param items the items.
+     * @return the immutable items.
+     */
+    public static ImmutableOptionItems of(final Map<?,?> items) {
+        Validate.notNull(items, "Items cannot be null");
+        final List<Object> entries = new ArrayList<Object>(items.size());
+        for (final Map.Entry<?,?> entry : items.entrySet()) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<Object,Object>(entry.getKey(), entry.getValue()));
+        }
+        return new ImmutableOptionItems(entries);
+    }
+
+
+
+    private ImmutableOptionItems(final List<Object> items) {
+        super();
+        this.items = Collections.unmodifiableList(items);
+    }
+
+
+
+    public int size() {
+        return this.items.size();
+    }
+
+
+    public Iterator<Object> iterator() {
+        return this.items.iterator();
+    }
+
+
+    @Override
+    public String toString() {
+        return this.items.toString();
+    }
+
+
+}
@@ -0,0 +1,297 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.util;
+
+import java.beans.PropertyEditor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.ObjectUtils;
+import org.thymeleaf.spring5.context.IThymeleafBindStatus;
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   Pre-computed index of the value bound to a form field, used for checking whether a candidate value
+ *   (e.g. the {@code value} of an {@code <option>}, checkbox or radio button) is <em>selected</em> in
+ *   constant time.
+ * </p>
+ * <p>
+ *   Checks performed on instances of this class are equivalent to those performed by
+ *   {@link SpringSelectedValueComparator#isSelected(IThymeleafBindStatus, Object)}, but all the work that does
+ *   not depend on the candidate value (collecting the bound values, computing their display strings and enum names,
+ *   looking up property editors...) is performed only once, when the index is created. This way, checking a list of
+ *   <em>N</em> options against a multi-valued field with <em>M</em> selected values costs <em>O(N+M)</em>
+ *   instead of <em>O(N&middot;M)</em> for raw value and display string matches.
+ * </p>
+ * <p>
+ *   Candidate values converted by means of property editors are still compared with each element of the bound
+ *   value using {@code equals(...)} (as {@link SpringSelectedValueComparator} does), so that elements whose
+ *   {@code hashCode()} is not consistent with {@code equals(...)} (e.g. entities overriding only
+ *   {@code equals(...)}) are matched exactly in the same way.
+ * </p>
+ * <p>
+ *   Instances of this class are meant to be created once per field and template execution (see
+ *   {@link #forBindStatus(IThymeleafBindStatus)}), and are NOT thread-safe (as the property editors they use
+ *   are not thread-safe either).
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+public final class SpringSelectedValueIndex {
+
+    private static final Object NOT_CONVERTED = new Object();
+
+
+    private final IThymeleafBindStatus bindStatus;
+
+    private final Object boundValue;
+    private final Object actualValue;
+    private final Object value; // The value actually being compared (actual value if not null, bound value if not)
+
+    // Direct containment checks, for collection, array and map values. For arrays and non-Set collections only the
+    // String elements are kept, as (String) candidates can only be equal to those
+    private final Collection<?> valueCollection;
+    private final Map<?,?> valueMap;
+
+    // Display strings (and enum names) of the value and its elements
+    private final Set<String> displayStrings;
+
+    // Elements to be compared with the candidate value after converting it with the element property editor
+    private final PropertyEditor elementEditor;
+    private final List<Object> editorComparableElements;
+
+    // Property editor for the value itself, only applicable if the value is not an enum
+    private final PropertyEditor valueEditor;
+
+
+
+
+    /**
+     * <p>
+     *   Creates a new selected value index for the specified bind status.
+     * </p>
+     *
+     * @param bindStatus the bind status for the field whose value is to be indexed.
+     * @return the new index.
+     */
+    public static SpringSelectedValueIndex forBindStatus(final IThymeleafBindStatus bindStatus) {
+        Validate.notNull(bindStatus, "Bind status cannot be null");
+        return new SpringSelectedValueIndex(bindStatus);
+    }
+
+
+
+
+    private SpringSelectedValueIndex(final IThymeleafBindStatus bindStatus) {
+
+        super();
+
+        this.bindStatus = bindStatus;
+        this.boundValue = bindStatus.getValue();
+        this.actualValue = bindStatus.getActualValue();
+        this.value = (this.actualValue != null? this.actualValue : this.boundValue);
+
+        this.displayStrings = new HashSet<String>();
+        this.editorComparableElements = new ArrayList<Object>(2);
+
+        if (this.value == null) {
+            this.valueCollection = null;
+            this.valueMap = null;
+            this.elementEditor = null;
+            this.valueEditor = null;
+            return;
+        }
+
+        final Collection<?> elements;
+        if (this.value.getClass().isArray()) {
+            elements = CollectionUtils.arrayToList(this.value);
+            this.valueCollection = indexStringElements(elements);
+            this.valueMap = null;
+        } else if (this.value instanceof Set) {
+            elements = (Collection<?>) this.value;
+            this.valueCollection = elements;
+            this.valueMap = null;
+        } else if (this.value instanceof Collection) {
+            elements = (Collection<?>) this.value;
+            this.valueCollection = indexStringElements(elements);
+            this.valueMap = null;
+        } else if (this.value instanceof Map) {
+            elements = ((Map<?,?>) this.value).keySet();
+            this.valueCollection = null;
+            this.valueMap = (Map<?,?>) this.value;
+        } else {
+            elements = null;
+            this.valueCollection = null;
+            this.valueMap = null;
+        }
+
+        PropertyEditor editor = null;
+        if (elements != null) {
+            for (final Object element : elements) {
+                // Same as SpringSelectedValueComparator: the editor is the one for the first (non-null) element
+                // for which one can be found, and it is only applied from that element on.
+                if (editor == null && element != null) {
+                    editor = bindStatus.findEditor(element.getClass());
+                }
+                if (indexDisplayStrings(element) && editor != null) {
+                    this.editorComparableElements.add(element);
+                }
+            }
+        }
+        this.elementEditor = editor;
+
+        // Finally, the value itself is also compared as a whole
+        this.valueEditor = (indexDisplayStrings(this.value)? bindStatus.getEditor() : null);
+
+    }
+
+
+    /*
+     * Candidates being checked against the collection are always Strings, and String#equals(...) only matches other
+     * Strings, so indexing these is equivalent to calling contains(...) on the original (non-Set) collection
+     */
+    private static Set<String> indexStringElements(final Collection<?> elements) {
+        final Set<String> stringElements = new HashSet<String>();
+        for (final Object element : elements) {
+            if (element instanceof String) {
+                stringElements.add((String) element);
+            }
+        }
+        return stringElements;
+    }
+
+
+    /*
+     * Returns true if the value is not an enum, and can therefore be compared by means of property editors
+     */
+    private boolean indexDisplayStrings(final Object object) {
+        if (object != null && object.getClass().isEnum()) {
+            final Enum<?> enumValue = (Enum<?>) object;
+            this.displayStrings.add(ObjectUtils.getDisplayString(enumValue.name()));
+            this.displayStrings.add(ObjectUtils.getDisplayString(enumValue.toString()));
+            return false;
+        }
+        this.displayStrings.add(ObjectUtils.getDisplayString(object));
+        return true;
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Checks whether this index has been created for the specified bind status.
+     * </p>
+     *
+     * @param bindStatus the bind status.
+     * @return {@code true} if this index can be used for checking values of the specified bind status.
+     */
+    public boolean isFor(final IThymeleafBindStatus bindStatus) {
+        if (this.bindStatus == bindStatus) {
+            return true;
+        }
+        return bindStatus != null &&
+                bindStatus.getActualValue() == this.actualValue &&
+                ObjectUtils.nullSafeEquals(this.bindStatus.getPath(), bindStatus.getPath());
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Checks whether the specified candidate value is selected, i.e. whether it matches the bound value
+     *   or, if the bound value is multi-valued, any of its elements.
+     * </p>
+     *
+     * @param candidateValue the candidate value (normally a {@code String}).
+     * @return {@code true} if the candidate value is selected, {@code false} if not.
+     */
+    public boolean isSelected(final Object candidateValue) {
+
+        if (!(candidateValue instanceof String)) {
+            // Candidate values are always Strings when coming from HTML attributes, so no index for other types
+            return SpringSelectedValueComparator.isSelected(this.bindStatus, candidateValue);
+        }
+        final String candidate = (String) candidateValue;
+
+        // Obvious equality matches with the candidate first, both with the rendered value and with the original value.
+        if (ObjectUtils.nullSafeEquals(this.boundValue, candidate)) {
+            return true;
+        }
+        if (this.actualValue != null && this.actualValue != this.boundValue &&
+                ObjectUtils.nullSafeEquals(this.actualValue, candidate)) {
+            return true;
+        }
+        if (this.value == null) {
+            return false;
+        }
+
+        try {
+            if (this.valueCollection != null && this.valueCollection.contains(candidate)) {
+                return true;
+            }
+            if (this.valueMap != null && this.valueMap.containsKey(candidate)) {
+                return true;
+            }
+        } catch (final ClassCastException ignored) {
+            // Probably from a TreeSet/TreeMap - ignore.
+        }
+
+        if (this.displayStrings.contains(candidate)) {
+            return true;
+        }
+
+        // Try PE-based comparison (PE should *not* be allowed to escape creating thread)
+        Object convertedCandidate = NOT_CONVERTED;
+        if (this.elementEditor != null && !this.editorComparableElements.isEmpty()) {
+            this.elementEditor.setAsText(candidate);
+            convertedCandidate = this.elementEditor.getValue();
+            // Linear scan: converted candidates (e.g. entities loaded by an editor) might not have a hashCode()
+            // consistent with equals(...), so no hash-based lookup can be used here
+            for (final Object element : this.editorComparableElements) {
+                if (ObjectUtils.nullSafeEquals(element, convertedCandidate)) {
+                    return true;
+                }
+            }
+        }
+        if (this.valueEditor != null) {
+            if (this.valueEditor != this.elementEditor || convertedCandidate == NOT_CONVERTED) {
+                this.valueEditor.setAsText(candidate);
+                convertedCandidate = this.valueEditor.getValue();
+            }
+            return ObjectUtils.nullSafeEquals(this.value, convertedCandidate);
+        }
+
+        return false;
+
+    }
+
+
+}
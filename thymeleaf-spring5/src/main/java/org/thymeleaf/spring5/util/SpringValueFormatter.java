@@ -48,8 +48,8 @@ public final class SpringValueFormatter {
 
 
     public static String getDisplayString(final Object value, final boolean htmlEscape) {
-        final String displayValue = ObjectUtils.getDisplayString(value);
-        return (htmlEscape ? HtmlUtils.htmlEscape(displayValue) : displayValue);
+        final String displayValue = toDisplayString(value);
+        return (htmlEscape && needsHtmlEscape(displayValue) ? HtmlUtils.htmlEscape(displayValue) : displayValue);
     }
 
 
@@ -69,6 +69,44 @@ public static String getDisplayString(final Object value, final PropertyEditor p
     }
 
 
+    /*
+     * Equivalent to ObjectUtils#getDisplayString(Object), but avoiding the type checks performed there
+     * for arrays in the most common cases: Strings, boxed primitives and enums.
+     */
+    private static String toDisplayString(final Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character || value instanceof Enum) {
+            final String str = value.toString(); // Might be null for an enum with a custom toString()
+            return (str != null? str : "");
+        }
+        return ObjectUtils.getDisplayString(value);
+    }
+
+
+    /*
+     * HtmlUtils#htmlEscape(String) always creates a new String, even if there is nothing to escape. Given its
+     * (default, ISO-8859-1) entity table, strings made only of ASCII characters other than the five markup-significant
+     * ones are always returned unchanged, so we can avoid calling it for them (which is the case for most values:
+     * numbers, booleans, enum names, dates...)
+     */
+    private static boolean needsHtmlEscape(final String text) {
+        final int textLen = text.length();
+        for (int i = 0; i < textLen; i++) {
+            final char c = text.charAt(i);
+            if (c > 0x7F || c == '<' || c == '>' || c == '&' || c == '"' || c == '\'') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+
     private SpringValueFormatter() {
         super();
     }
@@ -0,0 +1,145 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2018, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.spring5.util;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * <p>
+ *   Negative cache of bind paths that are known not to be readable on a specific bean class (when bound by means
+ *   of a specific {@code BindingResult} class, as e.g. {@code DirectFieldBindingResult} and
+ *   {@code BeanPropertyBindingResult} access different members of the bean), used by
+ *   {@link FieldUtils} for avoiding the (very expensive) creation of {@code NotReadablePropertyException}s
+ *   when optional binding is attempted on the same unbindable path again and again (e.g. for every evaluation
+ *   of a {@code ${{...}}} expression).
+ * </p>
+ * <p>
+ *   One instance is kept per {@link ApplicationContext}, and it is discarded whenever the application context
+ *   is refreshed (detected by means of its startup date). No caching is performed while a configurable
+ *   application context is not active. Only single-segment paths (direct properties of the bound bean) are cached:
+ *   the readability of nested, indexed or keyed properties depends on the runtime type of the intermediate objects
+ *   in the path, and not only on the bean class.
+ * </p>
+ * <p>
+ *   Objects of this class are thread-safe.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.12
+ *
+ */
+final class UnreadableBindPathCache {
+
+    // Limit to the amount of paths kept per bean class, so that dynamically-built expressions cannot make this grow
+    private static final int MAX_PATHS_PER_CLASS = 500;
+
+    // Soft references are used so that this cache never prevents ApplicationContexts from being garbage collected
+    private static final ConcurrentReferenceHashMap<ApplicationContext, UnreadableBindPathCache> INSTANCES =
+            new ConcurrentReferenceHashMap<ApplicationContext, UnreadableBindPathCache>(4);
+
+
+    private final long startupDate;
+    // Unreadable paths by binding result class and bean class
+    private final ConcurrentHashMap<Class<?>, ConcurrentHashMap<Class<?>, Set<String>>> unreadablePathsByClass =
+            new ConcurrentHashMap<Class<?>, ConcurrentHashMap<Class<?>, Set<String>>>(2);
+
+
+
+    static UnreadableBindPathCache forApplicationContext(final ApplicationContext applicationContext) {
+
+        if (applicationContext == null) {
+            return null;
+        }
+
+        if (applicationContext instanceof ConfigurableApplicationContext &&
+                !((ConfigurableApplicationContext) applicationContext).isActive()) {
+            // Context is being refreshed or has been closed: no caching at all
+            return null;
+        }
+
+        final long startupDate = applicationContext.getStartupDate();
+        UnreadableBindPathCache cache = INSTANCES.get(applicationContext);
+        if (cache == null || cache.startupDate != startupDate) {
+            // Either first use or the context has been refreshed since our paths were cached
+            cache = new UnreadableBindPathCache(startupDate);
+            INSTANCES.put(applicationContext, cache);
+        }
+        return cache;
+
+    }
+
+
+    static boolean isCacheable(final String path) {
+        return path.indexOf('.') < 0 && path.indexOf('[') < 0;
+    }
+
+
+
+    private UnreadableBindPathCache(final long startupDate) {
+        super();
+        this.startupDate = startupDate;
+    }
+
+
+
+    boolean isUnreadable(final Class<?> bindingResultClass, final Class<?> beanClass, final String path) {
+        final ConcurrentHashMap<Class<?>, Set<String>> unreadablePathsByBeanClass =
+                this.unreadablePathsByClass.get(bindingResultClass);
+        if (unreadablePathsByBeanClass == null) {
+            return false;
+        }
+        final Set<String> unreadablePaths = unreadablePathsByBeanClass.get(beanClass);
+        return unreadablePaths != null && unreadablePaths.contains(path);
+    }
+
+
+    void markUnreadable(final Class<?> bindingResultClass, final Class<?> beanClass, final String path) {
+        ConcurrentHashMap<Class<?>, Set<String>> unreadablePathsByBeanClass =
+                this.unreadablePathsByClass.get(bindingResultClass);
+        if (unreadablePathsByBeanClass == null) {
+            final ConcurrentHashMap<Class<?>, Set<String>> newUnreadablePathsByBeanClass =
+                    new ConcurrentHashMap<Class<?>, Set<String>>(16);
+            unreadablePathsByBeanClass =
+                    this.unreadablePathsByClass.putIfAbsent(bindingResultClass, newUnreadablePathsByBeanClass);
+            if (unreadablePathsByBeanClass == null) {
+                unreadablePathsByBeanClass = newUnreadablePathsByBeanClass;
+            }
+        }
+        Set<String> unreadablePaths = unreadablePathsByBeanClass.get(beanClass);
+        if (unreadablePaths == null) {
+            final Set<String> newUnreadablePaths = ConcurrentHashMap.newKeySet();
+            unreadablePaths = unreadablePathsByBeanClass.putIfAbsent(beanClass, newUnreadablePaths);
+            if (unreadablePaths == null) {
+                unreadablePaths = newUnreadablePaths;
+            }
+        }
+        if (unreadablePaths.size() < MAX_PATHS_PER_CLASS) {
+            unreadablePaths.add(path);
+        }
+    }
+
+
+}
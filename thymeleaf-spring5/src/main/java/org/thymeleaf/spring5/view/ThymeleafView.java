@@ -41,6 +41,7 @@
 import org.thymeleaf.exceptions.TemplateProcessingException;
 import org.thymeleaf.spring5.ISpringTemplateEngine;
 import org.thymeleaf.spring5.context.webmvc.SpringWebMvcThymeleafRequestContext;
+import org.thymeleaf.spring5.expression.IThymeleafEvaluationContext;
 import org.thymeleaf.spring5.expression.ThymeleafEvaluationContext;
 import org.thymeleaf.spring5.naming.SpringContextVariableNames;
 import org.thymeleaf.spring5.util.SpringContentTypeUtils;
@@ -245,12 +246,14 @@ protected void renderFragment(final Set<String> markupSelectorsToRender, final M
         // Expose Thymeleaf's own evaluation context as a model variable
         //
         // Note Spring's EvaluationContexts are NOT THREAD-SAFE (in exchange for SpelExpressions being thread-safe).
-        // That's why we need to create a new EvaluationContext for each request / template execution, even if it is
-        // quite expensive to create because of requiring the initialization of several ConcurrentHashMaps.
+        // That's why we need a new EvaluationContext for each request / template execution. But as creating a complete
+        // one is quite expensive (it requires the initialization of several ConcurrentHashMaps, resolvers and
+        // converters), we use a lightweight one that only holds per-execution state, delegating everything else to
+        // a shared instance for this ApplicationContext and ConversionService.
         final ConversionService conversionService =
                 (ConversionService) request.getAttribute(ConversionService.class.getName()); // might be null!
-        final ThymeleafEvaluationContext evaluationContext =
-                new ThymeleafEvaluationContext(applicationContext, conversionService);
+        final IThymeleafEvaluationContext evaluationContext =
+                ThymeleafEvaluationContext.createForTemplateExecution(applicationContext, conversionService);
         mergedModel.put(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME, evaluationContext);
 
 
@@ -57,6 +57,7 @@
 import org.thymeleaf.spring5.context.webflux.ReactiveDataDriverContextVariable;
 import org.thymeleaf.spring5.context.webflux.SpringWebFluxExpressionContext;
 import org.thymeleaf.spring5.context.webflux.SpringWebFluxThymeleafRequestContext;
+import org.thymeleaf.spring5.expression.IThymeleafEvaluationContext;
 import org.thymeleaf.spring5.expression.ThymeleafEvaluationContext;
 import org.thymeleaf.spring5.naming.SpringContextVariableNames;
 import org.thymeleaf.standard.expression.FragmentExpression;
@@ -448,13 +449,15 @@ protected Mono<Void> renderFragmentInternal(
         // Expose Thymeleaf's own evaluation context as a model variable
         //
         // Note Spring's EvaluationContexts are NOT THREAD-SAFE (in exchange for SpelExpressions being thread-safe).
-        // That's why we need to create a new EvaluationContext for each request / template execution, even if it is
-        // quite expensive to create because of requiring the initialization of several ConcurrentHashMaps.
+        // That's why we need a new EvaluationContext for each request / template execution. But as creating a complete
+        // one is quite expensive (it requires the initialization of several ConcurrentHashMaps, resolvers and
+        // converters), we use a lightweight one that only holds per-execution state, delegating everything else to
+        // a shared instance for this ApplicationContext and ConversionService.
         final ConversionService conversionService =
                 applicationContext.containsBean(WEBFLUX_CONVERSION_SERVICE_NAME)?
                         (ConversionService)applicationContext.getBean(WEBFLUX_CONVERSION_SERVICE_NAME): null;
-        final ThymeleafEvaluationContext evaluationContext =
-                new ThymeleafEvaluationContext(applicationContext, conversionService);
+        final IThymeleafEvaluationContext evaluationContext =
+                ThymeleafEvaluationContext.createForTemplateExecution(applicationContext, conversionService);
         mergedModel.put(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME, evaluationContext);
 
 
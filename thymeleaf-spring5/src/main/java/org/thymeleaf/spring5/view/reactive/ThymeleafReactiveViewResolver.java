@@ -25,6 +25,7 @@
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 import org.slf4j.Logger;
@@ -42,6 +43,7 @@
 import org.springframework.web.reactive.result.view.View;
 import org.springframework.web.reactive.result.view.ViewResolver;
 import org.springframework.web.reactive.result.view.ViewResolverSupport;
+import org.springframework.web.server.ServerWebExchange;
 import org.thymeleaf.spring5.ISpringWebFluxTemplateEngine;
 import org.thymeleaf.util.Validate;
 import reactor.core.publisher.Mono;
@@ -135,6 +137,28 @@
     // TODO * Will this exist in future versions of Spring WebFlux? See https://jira.spring.io/browse/SPR-14537
     public static final String FORWARD_URL_PREFIX = "forward:";
 
+    /**
+     * <p>
+     *   Default maximum number of entries for the view cache: 1024.
+     * </p>
+     *
+     * @since 3.0.12
+     */
+    public static final int DEFAULT_CACHE_LIMIT = 1024;
+
+    // Dummy marker object for unresolved views in the cache Maps. This mirrors what is done at the
+    // Spring WebMVC AbstractCachingViewResolver, so that both view resolvers behave in the same way.
+    private static final View UNRESOLVED_VIEW = new View() {
+        @Override
+        public List<MediaType> getSupportedMediaTypes() {
+            return Collections.emptyList();
+        }
+        @Override
+        public Mono<Void> render(final Map<String, ?> model, final MediaType contentType, final ServerWebExchange exchange) {
+            return Mono.empty();
+        }
+    };
+
     // Supported media types are all those defined at org.thymeleaf.util.ContentTypeUtils
     // Note that Spring will automatically perform content type negotiation based on the request query and a (possible)
     // HTTP Accept header, so there is no additional operation needed at the Thymeleaf side (template mode will
@@ -184,6 +208,27 @@
     private ISpringWebFluxTemplateEngine templateEngine;
 
 
+    // View cache. As in Spring WebMVC's AbstractCachingViewResolver, two maps are used: a fast concurrent map for
+    // lookups, and a synchronized LinkedHashMap for creation and eviction (the limit is applied on the latter).
+    private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
+    private boolean cacheUnresolved = true;
+
+    private final Map<Object, View> viewAccessCache = new ConcurrentHashMap<Object, View>(DEFAULT_CACHE_LIMIT);
+
+    @SuppressWarnings("serial")
+    private final Map<Object, View> viewCreationCache =
+            new LinkedHashMap<Object, View>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Object, View> eldest) {
+                    if (size() > getCacheLimit()) {
+                        viewAccessCache.remove(eldest.getKey());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+
+
 
 
 
@@ -906,8 +951,182 @@ public String[] getChunkedModeViewNames() {
         return this.chunkedModeViewNames;
     }
 
-    
-    
+
+
+
+
+    /**
+     * <p>
+     *   Specify the maximum number of entries for the view cache. Default is {@link #DEFAULT_CACHE_LIMIT}.
+     * </p>
+     * <p>
+     *   Views are cached per view name and locale, so that the (rather expensive) instantiation, autowiring
+     *   and initialization of {@link ThymeleafReactiveView} beans is only performed once for each of them.
+     *   Setting this to {@code 0} will disable caching completely.
+     * </p>
+     *
+     * @param cacheLimit the maximum number of views to be cached.
+     *
+     * @since 3.0.12
+     */
+    public void setCacheLimit(final int cacheLimit) {
+        this.cacheLimit = cacheLimit;
+    }
+
+
+    /**
+     * <p>
+     *   Return the maximum number of entries for the view cache.
+     * </p>
+     *
+     * @return the maximum number of views to be cached.
+     *
+     * @since 3.0.12
+     */
+    public int getCacheLimit() {
+        return this.cacheLimit;
+    }
+
+
+    /**
+     * <p>
+     *   Enable or disable caching.
+     * </p>
+     * <p>
+     *   This is equivalent to setting the {@link #setCacheLimit "cacheLimit"} property to the default limit
+     *   ({@code 1024}) or to {@code 0}, respectively.
+     * </p>
+     * <p>
+     *   Default is {@code true} (caching enabled). Only disable this for debugging and development.
+     * </p>
+     *
+     * @param cache whether views should be cached or not.
+     *
+     * @since 3.0.12
+     */
+    public void setCache(final boolean cache) {
+        this.cacheLimit = (cache ? DEFAULT_CACHE_LIMIT : 0);
+    }
+
+
+    /**
+     * <p>
+     *   Return whether caching is enabled.
+     * </p>
+     *
+     * @return whether views are being cached or not.
+     *
+     * @since 3.0.12
+     */
+    public boolean isCache() {
+        return (this.cacheLimit > 0);
+    }
+
+
+    /**
+     * <p>
+     *   Set whether view names that cannot be handled by this view resolver (see {@link #setViewNames(String[])}
+     *   and {@link #setExcludedViewNames(String[])}) should also be cached, so that subsequent resolutions for the
+     *   same name and locale are passed on to the next resolver in the chain without further checks.
+     * </p>
+     * <p>
+     *   Default is {@code true}.
+     * </p>
+     *
+     * @param cacheUnresolved whether unresolved view names should be cached or not.
+     *
+     * @since 3.0.12
+     */
+    public void setCacheUnresolved(final boolean cacheUnresolved) {
+        this.cacheUnresolved = cacheUnresolved;
+    }
+
+
+    /**
+     * <p>
+     *   Return whether view names that cannot be handled by this view resolver are also cached.
+     * </p>
+     *
+     * @return whether unresolved view names are cached or not.
+     *
+     * @since 3.0.12
+     */
+    public boolean isCacheUnresolved() {
+        return this.cacheUnresolved;
+    }
+
+
+    /**
+     * <p>
+     *   Provides functionality to clear the cache for a certain view.
+     * </p>
+     *
+     * @param viewName the view name for which the cached view object (if any) needs to be removed.
+     * @param locale the locale for which the view object should be removed.
+     *
+     * @since 3.0.12
+     */
+    public void removeFromCache(final String viewName, final Locale locale) {
+        if (!isCache()) {
+            vrlogger.warn("[THYMELEAF] View caching is SWITCHED OFF -- removal not necessary");
+            return;
+        }
+        final Object cacheKey = getCacheKey(viewName, locale);
+        final Object cachedView;
+        synchronized (this.viewCreationCache) {
+            this.viewAccessCache.remove(cacheKey);
+            cachedView = this.viewCreationCache.remove(cacheKey);
+        }
+        if (cachedView == null) {
+            vrlogger.debug("[THYMELEAF] No cached instance for view \"{}\" was found", cacheKey);
+        } else {
+            vrlogger.debug("[THYMELEAF] Cache for view \"{}\" has been cleared", cacheKey);
+        }
+    }
+
+
+    /**
+     * <p>
+     *   Clear the entire view cache, removing all cached view objects.
+     * </p>
+     * <p>
+     *   Subsequent resolve calls will lead to recreation of demanded view objects.
+     * </p>
+     *
+     * @since 3.0.12
+     */
+    public void clearCache() {
+        vrlogger.debug("[THYMELEAF] Clearing entire view cache");
+        synchronized (this.viewCreationCache) {
+            this.viewAccessCache.clear();
+            this.viewCreationCache.clear();
+        }
+    }
+
+
+    /**
+     * <p>
+     *   Return the cache key for the given view name and the given locale.
+     * </p>
+     * <p>
+     *   Default is a String consisting of view name and locale suffix. Can be overridden in subclasses.
+     * </p>
+     * <p>
+     *   Needs to respect the locale in general, as a different locale can lead to a different view resource.
+     * </p>
+     *
+     * @param viewName the view name.
+     * @param locale the locale.
+     * @return the key to be used for caching the view.
+     *
+     * @since 3.0.12
+     */
+    protected Object getCacheKey(final String viewName, final Locale locale) {
+        return viewName + '_' + locale;
+    }
+
+
+
 
     protected boolean canHandle(final String viewName, @SuppressWarnings("unused") final Locale locale) {
         final String[] viewNamesToBeProcessed = getViewNames();
@@ -962,6 +1181,56 @@ protected boolean shouldUseChunkedExecution(final String viewName) {
     @Override
     public Mono<View> resolveViewName(final String viewName, final Locale locale) {
 
+        if (!isCache()) {
+            return createView(viewName, locale);
+        }
+
+        final Object cacheKey = getCacheKey(viewName, locale);
+        final View cachedView = this.viewAccessCache.get(cacheKey);
+        if (cachedView != null) {
+            return (cachedView != UNRESOLVED_VIEW ? Mono.just(cachedView) : Mono.empty());
+        }
+
+        // Note view creation does not block, so completion of the returned Mono will happen during this same call.
+        // If creation fails (e.g. forwards), nothing will be cached.
+        return createView(viewName, locale).doOnSuccess(view -> {
+            if (view == null && !this.cacheUnresolved) {
+                return;
+            }
+            final View viewToCache = (view != null ? view : UNRESOLVED_VIEW);
+            synchronized (this.viewCreationCache) {
+                if (!this.viewCreationCache.containsKey(cacheKey)) {
+                    this.viewAccessCache.put(cacheKey, viewToCache);
+                    this.viewCreationCache.put(cacheKey, viewToCache);
+                }
+            }
+            vrlogger.trace("[THYMELEAF] Cached view for \"{}\"", cacheKey);
+        });
+
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Create (or decide not to create) the {@link View} object for the specified view name and locale. This
+     *   method will be called by {@link #resolveViewName(String, Locale)} only when the view is not already
+     *   cached.
+     * </p>
+     * <p>
+     *   Returning an empty {@link Mono} means this view resolver cannot handle the specified view name, which
+     *   will be passed on to the next resolver in the chain.
+     * </p>
+     *
+     * @param viewName the view name.
+     * @param locale the locale.
+     * @return the view, or an empty {@link Mono} if this view resolver cannot handle the view name.
+     *
+     * @since 3.0.12
+     */
+    protected Mono<View> createView(final String viewName, final Locale locale) {
+
         // First possible call to check "viewNames": before processing redirects and forwards
         if (!this.alwaysProcessRedirectAndForward && !canHandle(viewName, locale)) {
             vrlogger.trace("[THYMELEAF] View \"{}\" cannot be handled by ThymeleafReactiveViewResolver. Passing on to the next resolver in the chain.", viewName);